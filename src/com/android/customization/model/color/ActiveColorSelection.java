@@ -0,0 +1,76 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package com.android.customization.model.color;
+
+import static com.android.customization.model.ResourceConstants.OVERLAY_CATEGORY_COLOR;
+import static com.android.customization.model.ResourceConstants.OVERLAY_CATEGORY_SYSTEM_PALETTE;
+
+import android.text.TextUtils;
+
+import androidx.annotation.Nullable;
+
+import com.android.systemui.monet.Style;
+
+import java.util.Map;
+
+/**
+ * The applied color selection, resolved once per settings change so that any number of
+ * {@link ColorOption}s can be checked against it without re-reading or re-parsing the settings.
+ *
+ * <p>{@link #matches(ColorOption)} gives the same answer as
+ * {@link ColorOption#isActive(com.android.customization.model.CustomizationManager)}.
+ */
+public final class ActiveColorSelection {
+
+    private static final String EMPTY_JSON = "{}";
+
+    private final String mStyle;
+    @Nullable private final String mSource;
+    private final boolean mIsDefaultApplied;
+    private final String mPackagesKey;
+
+    private ActiveColorSelection(String style, @Nullable String source, boolean isDefaultApplied,
+            String packagesKey) {
+        mStyle = style;
+        mSource = source;
+        mIsDefaultApplied = isDefaultApplied;
+        mPackagesKey = packagesKey;
+    }
+
+    /** Resolves the selection currently applied according to {@code manager}. */
+    public static ActiveColorSelection from(ColorCustomizationManager manager) {
+        String currentStyle = manager.getCurrentStyle();
+        if (TextUtils.isEmpty(currentStyle)) {
+            currentStyle = Style.toString(Style.TONAL_SPOT);
+        }
+        String serializedOverlays = manager.getStoredOverlays();
+        Map<String, String> currentOverlays = manager.getCurrentOverlays();
+        // The default option is applied if there are no stored overlays or current overlays, or
+        // the stored overlays contain neither category system palette nor category color
+        boolean isDefaultApplied = TextUtils.isEmpty(serializedOverlays)
+                || EMPTY_JSON.equals(serializedOverlays)
+                || currentOverlays.isEmpty()
+                || !(serializedOverlays.contains(OVERLAY_CATEGORY_SYSTEM_PALETTE)
+                        || serializedOverlays.contains(OVERLAY_CATEGORY_COLOR));
+        String currentSource = manager.getCurrentColorSource();
+        return new ActiveColorSelection(
+                currentStyle,
+                TextUtils.isEmpty(currentSource) ? null : currentSource,
+                isDefaultApplied,
+                ColorOption.buildPackagesKey(currentOverlays));
+    }
+
+    /** Returns whether {@code option} is the applied one. */
+    public boolean matches(ColorOption option) {
+        if (!mStyle.equals(Style.toString(option.getStyle()))) {
+            return false;
+        }
+        if (option.isDefault()) {
+            return mIsDefaultApplied;
+        }
+        return (mSource == null || mSource.equals(option.getSource()))
+                && mPackagesKey.equals(option.getPackagesKey());
+    }
+}
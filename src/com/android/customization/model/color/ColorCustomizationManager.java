@@ -31,22 +31,19 @@ import static com.android.customization.model.color.ColorOptionsProvider.OVERLAY
 import android.app.WallpaperColors;
 import android.content.ContentResolver;
 import android.content.Context;
-import android.database.ContentObserver;
 import android.graphics.Color;
-import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
-import android.provider.Settings;
-import android.text.TextUtils;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.customization.model.CustomizationManager;
-import com.android.customization.model.ResourceConstants;
 import com.android.customization.model.color.ColorOptionsProvider.ColorSource;
 import com.android.customization.model.theme.OverlayManagerCompat;
+import com.android.customization.model.theme.OverlaySettingsBatch;
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository;
 import com.android.customization.module.logging.ThemesUserEventLogger;
 import com.android.systemui.monet.Style;
 import com.android.themepicker.R;
@@ -76,62 +73,54 @@ public class ColorCustomizationManager implements CustomizationManager<ColorOpti
         COLOR_OVERLAY_SETTINGS.add(OVERLAY_THEME_STYLE);
     }
 
-    private static ColorCustomizationManager sColorCustomizationManager;
-
     private final ColorOptionsProvider mProvider;
     private final OverlayManagerCompat mOverlayManagerCompat;
     private final ExecutorService mExecutorService;
-    private final ContentResolver mContentResolver;
+    private final ThemeOverlaySettingsRepository mOverlaySettingsRepository;
 
     private Map<String, String> mCurrentOverlays;
     @ColorSource private String mCurrentSource;
     private String mCurrentStyle;
+    private ActiveColorSelection mActiveColorSelection;
     private WallpaperColors mHomeWallpaperColors;
     private WallpaperColors mLockWallpaperColors;
 
-    /** Returns the {@link ColorCustomizationManager} instance. */
-    public static ColorCustomizationManager getInstance(Context context,
+    /**
+     * Creates a {@link ColorCustomizationManager}. The app holds a single instance in its Hilt
+     * component; Java callers outside of Hilt get it through the injector.
+     */
+    public static ColorCustomizationManager create(Context context,
+            ThemeOverlaySettingsRepository overlaySettingsRepository,
             OverlayManagerCompat overlayManagerCompat) {
-        return getInstance(context, overlayManagerCompat, Executors.newSingleThreadExecutor());
+        Context appContext = context.getApplicationContext();
+        return new ColorCustomizationManager(
+                new ColorProvider(appContext, appContext.getString(R.string.themes_stub_package)),
+                overlaySettingsRepository, overlayManagerCompat,
+                Executors.newSingleThreadExecutor());
     }
 
-    /** Returns the {@link ColorCustomizationManager} instance. */
     @VisibleForTesting
-    static ColorCustomizationManager getInstance(Context context,
+    ColorCustomizationManager(ColorOptionsProvider provider, ContentResolver contentResolver,
             OverlayManagerCompat overlayManagerCompat, ExecutorService executorService) {
-        if (sColorCustomizationManager == null) {
-            Context appContext = context.getApplicationContext();
-            sColorCustomizationManager = new ColorCustomizationManager(
-                    new ColorProvider(appContext,
-                            appContext.getString(R.string.themes_stub_package)),
-                    appContext.getContentResolver(), overlayManagerCompat,
-                    executorService);
-        }
-        return sColorCustomizationManager;
+        this(provider, new ThemeOverlaySettingsRepository(contentResolver), overlayManagerCompat,
+                executorService);
     }
 
-    @VisibleForTesting
-    ColorCustomizationManager(ColorOptionsProvider provider, ContentResolver contentResolver,
+    private ColorCustomizationManager(ColorOptionsProvider provider,
+            ThemeOverlaySettingsRepository overlaySettingsRepository,
             OverlayManagerCompat overlayManagerCompat, ExecutorService executorService) {
         mProvider = provider;
-        mContentResolver = contentResolver;
+        mOverlaySettingsRepository = overlaySettingsRepository;
         mExecutorService = executorService;
-        ContentObserver observer = new ContentObserver(/* handler= */ null) {
-            @Override
-            public void onChange(boolean selfChange, Uri uri) {
-                super.onChange(selfChange, uri);
-                // Resets current overlays when system's theme setting is changed.
-                if (TextUtils.equals(uri.getLastPathSegment(), ResourceConstants.THEME_SETTING)) {
-                    Log.i(TAG, "Resetting " + mCurrentOverlays + ", " + mCurrentStyle + ", "
-                            + mCurrentSource + " to null");
-                    mCurrentOverlays = null;
-                    mCurrentStyle = null;
-                    mCurrentSource = null;
-                }
-            }
-        };
-        mContentResolver.registerContentObserver(
-                Settings.Secure.CONTENT_URI, /* notifyForDescendants= */ true, observer);
+        // Resets current overlays when system's theme setting is changed.
+        mOverlaySettingsRepository.addListener(snapshot -> {
+            Log.i(TAG, "Resetting " + mCurrentOverlays + ", " + mCurrentStyle + ", "
+                    + mCurrentSource + " to null");
+            mCurrentOverlays = null;
+            mCurrentStyle = null;
+            mCurrentSource = null;
+            mActiveColorSelection = null;
+        });
         mOverlayManagerCompat = overlayManagerCompat;
     }
 
@@ -147,40 +136,8 @@ public class ColorCustomizationManager implements CustomizationManager<ColorOpti
 
     private void applyOverlays(ColorOption colorOption, Callback callback) {
         mExecutorService.submit(() -> {
-            String currentStoredOverlays = getStoredOverlays();
-            if (TextUtils.isEmpty(currentStoredOverlays)) {
-                currentStoredOverlays = "{}";
-            }
-            JSONObject overlaysJson = null;
-            try {
-                overlaysJson = new JSONObject(currentStoredOverlays);
-                JSONObject colorJson = colorOption.getJsonPackages(true);
-                for (String setting : COLOR_OVERLAY_SETTINGS) {
-                    overlaysJson.remove(setting);
-                }
-                for (Iterator<String> it = colorJson.keys(); it.hasNext(); ) {
-                    String key = it.next();
-                    overlaysJson.put(key, colorJson.get(key));
-                }
-                overlaysJson.put(OVERLAY_COLOR_SOURCE, colorOption.getSource());
-                overlaysJson.put(OVERLAY_COLOR_INDEX, String.valueOf(colorOption.getIndex()));
-                overlaysJson.put(OVERLAY_THEME_STYLE,
-                        String.valueOf(Style.toString(colorOption.getStyle())));
-
-                // OVERLAY_COLOR_BOTH is only for wallpaper color case, not preset.
-                if (!COLOR_SOURCE_PRESET.equals(colorOption.getSource())) {
-                    boolean isForBoth =
-                            (mLockWallpaperColors == null || mLockWallpaperColors.equals(
-                                    mHomeWallpaperColors));
-                    overlaysJson.put(OVERLAY_COLOR_BOTH, isForBoth ? "1" : "0");
-                } else {
-                    overlaysJson.remove(OVERLAY_COLOR_BOTH);
-                }
-            } catch (JSONException e) {
-                e.printStackTrace();
-            }
-            boolean allApplied = overlaysJson != null && Settings.Secure.putString(
-                    mContentResolver, ResourceConstants.THEME_SETTING, overlaysJson.toString());
+            OverlaySettingsBatch batch = mOverlaySettingsRepository.newBatch();
+            boolean allApplied = stageOverlays(colorOption, batch) && batch.commit();
             new Handler(Looper.getMainLooper()).post(() -> {
                 if (allApplied) {
                     callback.onSuccess();
@@ -191,6 +148,41 @@ public class ColorCustomizationManager implements CustomizationManager<ColorOpti
         });
     }
 
+    /**
+     * Stages the overlay settings of the given {@link ColorOption} into {@code batch}, so that all
+     * of its color keys are written in one update.
+     * @return false if the color option could not be serialized
+     */
+    private boolean stageOverlays(ColorOption colorOption, OverlaySettingsBatch batch) {
+        try {
+            JSONObject colorJson = colorOption.getJsonPackages(true);
+            for (String setting : COLOR_OVERLAY_SETTINGS) {
+                batch.remove(setting);
+            }
+            for (Iterator<String> it = colorJson.keys(); it.hasNext(); ) {
+                String key = it.next();
+                batch.put(key, colorJson.get(key));
+            }
+            batch.put(OVERLAY_COLOR_SOURCE, colorOption.getSource());
+            batch.put(OVERLAY_COLOR_INDEX, String.valueOf(colorOption.getIndex()));
+            batch.put(OVERLAY_THEME_STYLE, String.valueOf(Style.toString(colorOption.getStyle())));
+
+            // OVERLAY_COLOR_BOTH is only for wallpaper color case, not preset.
+            if (!COLOR_SOURCE_PRESET.equals(colorOption.getSource())) {
+                boolean isForBoth =
+                        (mLockWallpaperColors == null || mLockWallpaperColors.equals(
+                                mHomeWallpaperColors));
+                batch.put(OVERLAY_COLOR_BOTH, isForBoth ? "1" : "0");
+            } else {
+                batch.remove(OVERLAY_COLOR_BOTH);
+            }
+        } catch (JSONException e) {
+            Log.e(TAG, "Failed to stage color overlays", e);
+            return false;
+        }
+        return true;
+    }
+
     @Override
     public void fetchOptions(OptionsFetchedListener<ColorOption> callback, boolean reload) {
         WallpaperColors lockWallpaperColors = mLockWallpaperColors;
@@ -277,8 +269,21 @@ public class ColorCustomizationManager implements CustomizationManager<ColorOpti
         return mCurrentStyle;
     }
 
+    /**
+     * Returns the currently applied color selection. It is resolved once per settings change, so
+     * checking many {@link ColorOption}s against it costs no parsing.
+     */
+    public ActiveColorSelection getActiveColorSelection() {
+        ActiveColorSelection selection = mActiveColorSelection;
+        if (selection == null) {
+            selection = ActiveColorSelection.from(this);
+            mActiveColorSelection = selection;
+        }
+        return selection;
+    }
+
     public String getStoredOverlays() {
-        return Settings.Secure.getString(mContentResolver, ResourceConstants.THEME_SETTING);
+        return mOverlaySettingsRepository.getSerialized();
     }
 
     @VisibleForTesting
@@ -287,6 +292,7 @@ public class ColorCustomizationManager implements CustomizationManager<ColorOpti
         mCurrentSource = allSettings.remove(OVERLAY_COLOR_SOURCE);
         mCurrentStyle = allSettings.remove(OVERLAY_THEME_STYLE);
         mCurrentOverlays = allSettings;
+        mActiveColorSelection = null;
     }
 
     private Map<String, String> parseColorSettings(String serializedJsonSettings) {
@@ -41,6 +41,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 /**
@@ -62,6 +63,7 @@ public abstract class ColorOption implements CustomizationOption<ColorOption> {
     private final int mIndex;
     private CharSequence mContentDescription;
     private final @ColorInt int mSeedColor;
+    private String mPackagesKey;
 
     protected ColorOption(String title, Map<String, String> overlayPackages, boolean isDefault,
             int seedColor, @Style.Type Integer style, int index) {
@@ -145,6 +147,36 @@ public abstract class ColorOption implements CustomizationOption<ColorOption> {
         return mPackagesByCategory;
     }
 
+    /**
+     * Returns a canonical representation of the overlay packages of this option. Two options have
+     * the same key when their package maps are equal, regardless of map ordering. The key is
+     * computed once and cached.
+     */
+    public String getPackagesKey() {
+        if (mPackagesKey == null) {
+            mPackagesKey = isDefault() ? "" : buildPackagesKey(mPackagesByCategory);
+        }
+        return mPackagesKey;
+    }
+
+    /**
+     * Builds the canonical key of the given overlay packages, see {@link #getPackagesKey()}.
+     */
+    static String buildPackagesKey(Map<String, String> packages) {
+        StringBuilder key = new StringBuilder();
+        for (Map.Entry<String, String> entry : new TreeMap<>(packages).entrySet()) {
+            if (key.length() > 0) {
+                key.append(';');
+            }
+            key.append(entry.getKey());
+            // Keep null values distinct from empty ones so keys compare like the maps do.
+            if (entry.getValue() != null) {
+                key.append('=').append(entry.getValue());
+            }
+        }
+        return key.toString();
+    }
+
     public String getSerializedPackages() {
         return getJsonPackages(false).toString();
     }
@@ -0,0 +1,231 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.model.color
+
+import android.app.WallpaperColors
+import android.content.Context
+import android.content.pm.PackageManager
+import android.content.res.Configuration
+import android.os.Build
+import android.util.AtomicFile
+import android.util.Log
+import com.android.customization.picker.color.shared.model.ColorType
+import com.android.themepicker.R
+import com.android.wallpaper.picker.di.modules.BackgroundDispatcher
+import dagger.hilt.android.qualifiers.ApplicationContext
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.util.Locale
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.withContext
+
+/**
+ * Persists the generated [ColorOptionImpl]s of every [ColorType] across process restarts, so that a
+ * cold start can show them without recomputing every color scheme from [WallpaperColors].
+ *
+ * The cache holds a single entry, keyed by a hash of the home and lock [WallpaperColors], the
+ * locale used for the option titles and the build fingerprint. The monet library ships as part of
+ * the system image, so the fingerprint changes whenever the color generation code might have. The
+ * preset and DerpFest options come from the themes stub APK and from this app's resources, so the
+ * versions of both packages and the night mode are part of the key as well.
+ */
+@Singleton
+class ColorOptionsDiskCache
+@Inject
+constructor(
+    @ApplicationContext private val context: Context,
+    @BackgroundDispatcher private val bgDispatcher: CoroutineDispatcher,
+) {
+
+    private val file: AtomicFile by lazy {
+        // Files written in an older format are never read again.
+        (1 until FORMAT_VERSION).forEach { File(context.noBackupFilesDir, fileName(it)).delete() }
+        AtomicFile(File(context.noBackupFilesDir, fileName(FORMAT_VERSION)))
+    }
+
+    /**
+     * Returns the cached options for the given wallpaper colors, or null when nothing was cached
+     * for them.
+     */
+    suspend fun read(
+        homeWallpaperColors: WallpaperColors?,
+        lockWallpaperColors: WallpaperColors?,
+    ): List<ColorOptionImpl>? =
+        withContext(bgDispatcher) {
+            val key = cacheKey(homeWallpaperColors, lockWallpaperColors)
+            try {
+                DataInputStream(file.openRead().buffered()).use { input ->
+                    if (input.readInt() != FORMAT_VERSION || input.readLong() != key) {
+                        return@withContext null
+                    }
+                    List(input.readInt()) { input.readOption() }
+                }
+            } catch (e: IOException) {
+                // A missing file is the normal cold state; anything else is a stale or corrupt
+                // cache that will be overwritten by the next write.
+                null
+            } catch (e: IllegalArgumentException) {
+                Log.w(TAG, "Discarding unreadable color options cache", e)
+                null
+            }
+        }
+
+    /** Replaces the cached options with [options] for the given wallpaper colors. */
+    suspend fun write(
+        homeWallpaperColors: WallpaperColors?,
+        lockWallpaperColors: WallpaperColors?,
+        options: List<ColorOptionImpl>,
+    ) =
+        withContext(bgDispatcher) {
+            val key = cacheKey(homeWallpaperColors, lockWallpaperColors)
+            val stream =
+                try {
+                    file.startWrite()
+                } catch (e: IOException) {
+                    Log.w(TAG, "Failed to open color options cache for writing", e)
+                    return@withContext
+                }
+            try {
+                val output = DataOutputStream(stream.buffered())
+                output.writeInt(FORMAT_VERSION)
+                output.writeLong(key)
+                output.writeInt(options.size)
+                options.forEach { output.writeOption(it) }
+                output.flush()
+                file.finishWrite(stream)
+            } catch (e: IOException) {
+                Log.w(TAG, "Failed to write color options cache", e)
+                file.failWrite(stream)
+            }
+        }
+
+    /** Returns whether [first] and [second] would be cached as the same options. */
+    fun contentEquals(first: List<ColorOptionImpl>, second: List<ColorOptionImpl>): Boolean {
+        return first.size == second.size && serialize(first).contentEquals(serialize(second))
+    }
+
+    private fun serialize(options: List<ColorOptionImpl>): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        DataOutputStream(bytes).use { output -> options.forEach { output.writeOption(it) } }
+        return bytes.toByteArray()
+    }
+
+    private fun cacheKey(
+        homeWallpaperColors: WallpaperColors?,
+        lockWallpaperColors: WallpaperColors?,
+    ): Long {
+        val nightMode = context.resources.configuration.uiMode and Configuration.UI_MODE_NIGHT_MASK
+        var hash = HASH_SEED
+        hash = hash * 31 + Build.FINGERPRINT.hashCode()
+        hash = hash * 31 + Locale.getDefault().toLanguageTag().hashCode()
+        hash = hash * 31 + hashOfPackage(context.getString(R.string.themes_stub_package))
+        hash = hash * 31 + hashOfPackage(context.packageName)
+        hash = hash * 31 + nightMode
+        hash = hash * 31 + hashOf(homeWallpaperColors)
+        hash = hash * 31 + hashOf(lockWallpaperColors)
+        return hash
+    }
+
+    /**
+     * [WallpaperColors.hashCode] is not guaranteed to be stable across processes, so hash the
+     * parts that the color options are derived from directly.
+     */
+    private fun hashOf(colors: WallpaperColors?): Long {
+        if (colors == null) {
+            return 0L
+        }
+        var hash = colors.colorHints.toLong()
+        colors.mainColors.forEach { hash = hash * 31 + it.toArgb() }
+        // The seed colors are scored from the full color population, not just the main colors.
+        colors.allColors.entries
+            .sortedBy { it.key }
+            .forEach { (color, population) -> hash = (hash * 31 + color) * 31 + population }
+        return hash
+    }
+
+    /** Hashes the installed version of [packageName], or 0 if it is not installed. */
+    private fun hashOfPackage(packageName: String): Long {
+        if (packageName.isEmpty()) {
+            return 0L
+        }
+        return try {
+            val packageInfo = context.packageManager.getPackageInfo(packageName, 0)
+            packageInfo.longVersionCode * 31 + packageInfo.lastUpdateTime
+        } catch (e: PackageManager.NameNotFoundException) {
+            0L
+        }
+    }
+
+    private fun DataOutputStream.writeOption(option: ColorOptionImpl) {
+        writeNullableString(option.title)
+        writeBoolean(option.isDefault)
+        writeNullableString(option.source)
+        writeInt(option.seedColor)
+        writeInt(option.style)
+        writeInt(option.index)
+        writeUTF(option.type.name)
+        writeIntArray(option.previewInfo.lightColors)
+        writeIntArray(option.previewInfo.darkColors)
+        val packages = option.packagesByCategory
+        writeInt(packages.size)
+        packages.forEach { (category, packageName) ->
+            writeUTF(category)
+            writeNullableString(packageName)
+        }
+    }
+
+    private fun DataInputStream.readOption(): ColorOptionImpl {
+        val builder = ColorOptionImpl.Builder()
+        builder.title = readNullableString()
+        builder.isDefault = readBoolean()
+        builder.source = readNullableString()
+        builder.seedColor = readInt()
+        builder.style = readInt()
+        builder.index = readInt()
+        builder.type = ColorType.valueOf(readUTF())
+        builder.lightColors = readIntArray()
+        builder.darkColors = readIntArray()
+        repeat(readInt()) { builder.addOverlayPackage(readUTF(), readNullableString()) }
+        return builder.build()
+    }
+
+    private fun DataOutputStream.writeNullableString(value: String?) {
+        writeBoolean(value != null)
+        value?.let { writeUTF(it) }
+    }
+
+    private fun DataInputStream.readNullableString(): String? {
+        return if (readBoolean()) readUTF() else null
+    }
+
+    private fun DataOutputStream.writeIntArray(values: IntArray) {
+        writeInt(values.size)
+        values.forEach { writeInt(it) }
+    }
+
+    private fun DataInputStream.readIntArray(): IntArray {
+        val size = readInt()
+        if (size < 0 || size > MAX_PREVIEW_COLORS) {
+            throw IllegalArgumentException("Unexpected preview color count $size")
+        }
+        return IntArray(size) { readInt() }
+    }
+
+    companion object {
+        private const val TAG = "ColorOptionsDiskCache"
+        /** Bump whenever the binary layout or the meaning of a stored field changes. */
+        private const val FORMAT_VERSION = 2
+        private const val HASH_SEED = 17L
+        private const val MAX_PREVIEW_COLORS = 16
+
+        private fun fileName(formatVersion: Int) = "wallpaper_color_options_v$formatVersion.bin"
+    }
+}
@@ -20,7 +20,9 @@ import android.app.WallpaperManager
 import android.content.Context
 import android.content.res.ColorStateList
 import android.content.res.Resources
+import android.util.Log
 import androidx.annotation.ColorInt
+import androidx.annotation.VisibleForTesting
 import androidx.core.graphics.ColorUtils.setAlphaComponent
 import androidx.lifecycle.LifecycleOwner
 import androidx.lifecycle.lifecycleScope
@@ -45,6 +47,9 @@ import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.Job
 import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.withContext
 
@@ -65,6 +70,7 @@ class ColorProvider(private val context: Context, stubPackageName: String) :
     }
 
     private var loaderJob: Job? = null
+    @Volatile private var seedLoaderJob: Job? = null
     private val monetEnabled = ColorUtils.isMonetEnabled(context)
     // TODO(b/202145216): Use style method to fetch the list of style.
     @Style.Type
@@ -103,7 +109,7 @@ class ColorProvider(private val context: Context, stubPackageName: String) :
         if (isNewPickerUi) {
             val wallpaperColorsChanged = this.homeWallpaperColors != homeWallpaperColors
             if (wallpaperColorsChanged || reload) {
-                loadSeedColors(homeWallpaperColors)
+                startLoadingSeedColors(homeWallpaperColors)
                 this.homeWallpaperColors = homeWallpaperColors
             }
         } else {
@@ -111,13 +117,14 @@ class ColorProvider(private val context: Context, stubPackageName: String) :
                 this.homeWallpaperColors != homeWallpaperColors ||
                     this.lockWallpaperColors != lockWallpaperColors
             if (wallpaperColorsChanged || reload) {
-                loadSeedColors(homeWallpaperColors, lockWallpaperColors)
+                startLoadingSeedColors(homeWallpaperColors, lockWallpaperColors)
                 this.homeWallpaperColors = homeWallpaperColors
                 this.lockWallpaperColors = lockWallpaperColors
             }
         }
 
         scope.launch {
+            awaitSeedColors()
             loaderJob?.join()
             if (presetColorBundles == null || reload) {
                 try {
@@ -134,6 +141,23 @@ class ColorProvider(private val context: Context, stubPackageName: String) :
         }
     }
 
+    /**
+     * Waits for the wallpaper colors to be generated. A load cancelled in favor of a newer one
+     * while waiting is followed by waiting for the newer one, so that the newest colors are
+     * published.
+     */
+    private suspend fun awaitSeedColors() {
+        var joinedJob: Job? = null
+        while (true) {
+            val currentJob = seedLoaderJob
+            if (currentJob === joinedJob) {
+                return
+            }
+            currentJob?.join()
+            joinedJob = currentJob
+        }
+    }
+
     private fun isLockScreenWallpaperLastApplied(): Boolean {
         // The WallpaperId increases every time a new wallpaper is set, so the larger wallpaper id
         // is the most recently set wallpaper
@@ -142,13 +166,28 @@ class ColorProvider(private val context: Context, stubPackageName: String) :
             manager.getWallpaperId(WallpaperManager.FLAG_SYSTEM)
     }
 
-    private fun loadSeedColors(
+    /**
+     * Cancels any in-flight wallpaper color generation and starts a new one for the given colors.
+     * A cancelled load never publishes its partial result to [wallpaperColorBundles].
+     */
+    private fun startLoadingSeedColors(
+        homeWallpaperColors: WallpaperColors?,
+        lockWallpaperColors: WallpaperColors? = null,
+    ) {
+        seedLoaderJob?.cancel()
+        seedLoaderJob =
+            scope.launch(Dispatchers.Default) {
+                loadSeedColors(homeWallpaperColors, lockWallpaperColors)
+            }
+    }
+
+    private suspend fun loadSeedColors(
         homeWallpaperColors: WallpaperColors?,
         lockWallpaperColors: WallpaperColors? = null,
     ) {
         if (homeWallpaperColors == null) return
 
-        val bundles: MutableList<ColorOption> = ArrayList()
+        val seeds: MutableList<SeedColor> = ArrayList()
         val colorsPerSource =
             if (lockWallpaperColors == null) {
                 MAX_SEED_COLORS
@@ -164,20 +203,31 @@ class ColorProvider(private val context: Context, stubPackageName: String) :
                 colorsPerSource,
                 if (shouldLockColorsGoFirst) COLOR_SOURCE_LOCK else COLOR_SOURCE_HOME,
                 true,
-                bundles,
+                seeds,
             )
             // Second half of the colors
             buildColorSeeds(
                 if (shouldLockColorsGoFirst) homeWallpaperColors else lockWallpaperColors,
-                MAX_SEED_COLORS - bundles.size / styleSize,
+                MAX_SEED_COLORS - seeds.size,
                 if (shouldLockColorsGoFirst) COLOR_SOURCE_HOME else COLOR_SOURCE_LOCK,
                 false,
-                bundles,
+                seeds,
             )
         } else {
-            buildColorSeeds(homeWallpaperColors, colorsPerSource, COLOR_SOURCE_HOME, true, bundles)
+            buildColorSeeds(homeWallpaperColors, colorsPerSource, COLOR_SOURCE_HOME, true, seeds)
+        }
+
+        // Every (seed, style) pair needs two independent ColorSchemes, so fan them out across the
+        // default dispatcher and collect them back in seed-major, style-minor order.
+        wallpaperColorBundles = coroutineScope {
+            seeds
+                .flatMap { seed ->
+                    styleList.map { style ->
+                        async(Dispatchers.Default) { buildBundle(seed, style) }
+                    }
+                }
+                .awaitAll()
         }
-        wallpaperColorBundles = bundles
     }
 
     private fun buildColorSeeds(
@@ -185,57 +235,59 @@ class ColorProvider(private val context: Context, stubPackageName: String) :
         maxColors: Int,
         source: String,
         containsDefault: Boolean,
-        bundles: MutableList<ColorOption>,
+        seeds: MutableList<SeedColor>,
     ) {
         val seedColors = ColorScheme.getSeedColors(wallpaperColors)
         val defaultSeed = seedColors.first()
-        buildBundle(defaultSeed, 0, containsDefault, source, bundles)
+        seeds.add(SeedColor(defaultSeed, 0, containsDefault, source))
         for ((i, colorInt) in seedColors.drop(1).take(maxColors - 1).withIndex()) {
-            buildBundle(colorInt, i + 1, false, source, bundles)
+            seeds.add(SeedColor(colorInt, i + 1, false, source))
         }
     }
 
-    private fun buildBundle(
-        colorInt: Int,
-        i: Int,
-        isDefault: Boolean,
-        source: String,
-        bundles: MutableList<ColorOption>,
-    ) {
-        // TODO(b/202145216): Measure time cost in the loop.
-        for (style in styleList) {
-            val lightColorScheme = ColorScheme(colorInt, /* darkTheme= */ false, style)
-            val darkColorScheme = ColorScheme(colorInt, /* darkTheme= */ true, style)
-            val builder = ColorOptionImpl.Builder()
-            builder.lightColors = getLightColorPreview(lightColorScheme)
-            builder.darkColors = getDarkColorPreview(darkColorScheme)
-            builder.seedColor = colorInt
-            builder.addOverlayPackage(
-                OVERLAY_CATEGORY_SYSTEM_PALETTE,
-                if (isDefault) "" else toColorString(colorInt),
-            )
-            builder.title =
-                when (style) {
-                    Style.TONAL_SPOT ->
-                        context.getString(R.string.content_description_dynamic_color_option)
-                    Style.SPRITZ ->
-                        context.getString(R.string.content_description_neutral_color_option)
-                    Style.VIBRANT ->
-                        context.getString(R.string.content_description_vibrant_color_option)
-                    Style.EXPRESSIVE ->
-                        context.getString(R.string.content_description_expressive_color_option)
-                    else -> context.getString(R.string.content_description_dynamic_color_option)
-                }
-            builder.source = source
-            builder.style = style
-            // Color option index value starts from 1.
-            builder.index = i + 1
-            builder.isDefault = isDefault
-            builder.type = ColorType.WALLPAPER_COLOR
-            bundles.add(builder.build())
-        }
+    @VisibleForTesting
+    fun buildBundle(seed: SeedColor, @Style.Type style: Int): ColorOption {
+        val colorInt = seed.colorInt
+        val isDefault = seed.isDefault
+        val lightColorScheme = ColorSchemeCache.get(colorInt, /* darkTheme= */ false, style)
+        val darkColorScheme = ColorSchemeCache.get(colorInt, /* darkTheme= */ true, style)
+        val builder = ColorOptionImpl.Builder()
+        builder.lightColors = getLightColorPreview(lightColorScheme)
+        builder.darkColors = getDarkColorPreview(darkColorScheme)
+        builder.seedColor = colorInt
+        builder.addOverlayPackage(
+            OVERLAY_CATEGORY_SYSTEM_PALETTE,
+            if (isDefault) "" else toColorString(colorInt),
+        )
+        builder.title =
+            when (style) {
+                Style.TONAL_SPOT ->
+                    context.getString(R.string.content_description_dynamic_color_option)
+                Style.SPRITZ -> context.getString(R.string.content_description_neutral_color_option)
+                Style.VIBRANT ->
+                    context.getString(R.string.content_description_vibrant_color_option)
+                Style.EXPRESSIVE ->
+                    context.getString(R.string.content_description_expressive_color_option)
+                else -> context.getString(R.string.content_description_dynamic_color_option)
+            }
+        builder.source = seed.source
+        builder.style = style
+        // Color option index value starts from 1.
+        builder.index = seed.index + 1
+        builder.isDefault = isDefault
+        builder.type = ColorType.WALLPAPER_COLOR
+        return builder.build()
     }
 
+    /** A wallpaper seed color together with its position within its [source]. */
+    @VisibleForTesting
+    data class SeedColor(
+        val colorInt: Int,
+        val index: Int,
+        val isDefault: Boolean,
+        val source: String,
+    )
+
     /**
      * Returns the light theme version of the Revamped UI preview of a ColorScheme based on this
      * order: top left, top right, bottom left, bottom right
@@ -386,8 +438,8 @@ class ColorProvider(private val context: Context, stubPackageName: String) :
         builder.source = ColorOptionsProvider.COLOR_SOURCE_PRESET
         builder.type = type
         val colorFromStub = getItemColorFromStub(COLOR_BUNDLE_MAIN_COLOR_PREFIX, bundleName)
-        var darkColorScheme = ColorScheme(colorFromStub, /* darkTheme= */ true)
-        var lightColorScheme = ColorScheme(colorFromStub, /* darkTheme= */ false)
+        var darkColorScheme = ColorSchemeCache.get(colorFromStub, /* darkTheme= */ true)
+        var lightColorScheme = ColorSchemeCache.get(colorFromStub, /* darkTheme= */ false)
         val lightColor = lightColorScheme.accentColor
         val darkColor = darkColorScheme.accentColor
         var lightColors = intArrayOf(lightColor, lightColor, lightColor, lightColor)
@@ -398,8 +450,8 @@ class ColorProvider(private val context: Context, stubPackageName: String) :
         if (style != null) {
             builder.style = style
 
-            lightColorScheme = ColorScheme(colorFromStub, /* darkTheme= */ false, style)
-            darkColorScheme = ColorScheme(colorFromStub, /* darkTheme= */ true, style)
+            lightColorScheme = ColorSchemeCache.get(colorFromStub, /* darkTheme= */ false, style)
+            darkColorScheme = ColorSchemeCache.get(colorFromStub, /* darkTheme= */ true, style)
 
             when (style) {
                 Style.MONOCHROMATIC -> {
@@ -434,6 +486,9 @@ class ColorProvider(private val context: Context, stubPackageName: String) :
                 }
             }
         }
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            Log.d(TAG, "Built color options with $ColorSchemeCache")
+        }
         return wallpaperColors + presetColors + derpFestColors
     }
 }
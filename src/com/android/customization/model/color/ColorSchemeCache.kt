@@ -0,0 +1,65 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.model.color
+
+import android.util.LruCache
+import androidx.annotation.ColorInt
+import com.android.systemui.monet.ColorScheme
+import com.android.systemui.monet.Style
+
+/**
+ * Process-wide, bounded cache of [ColorScheme]s keyed by seed color, style and dark theme.
+ *
+ * Building a [ColorScheme] runs the full tonal palette computation, and the same schemes are
+ * requested over and over whenever the wallpaper colors are re-emitted or the color sheet is
+ * reopened. [ColorScheme] is immutable, so instances can be shared between callers.
+ */
+object ColorSchemeCache {
+
+    private const val MAX_SIZE = 128
+
+    private data class Key(
+        @ColorInt val seed: Int,
+        @Style.Type val style: Int,
+        val darkTheme: Boolean,
+    )
+
+    private val cache =
+        object : LruCache<Key, ColorScheme>(MAX_SIZE) {
+            override fun create(key: Key): ColorScheme {
+                return ColorScheme(key.seed, key.darkTheme, key.style)
+            }
+        }
+
+    /** Returns the cached [ColorScheme] for the given parameters, creating it if needed. */
+    @JvmStatic
+    @JvmOverloads
+    fun get(
+        @ColorInt seed: Int,
+        darkTheme: Boolean,
+        @Style.Type style: Int = Style.TONAL_SPOT,
+    ): ColorScheme {
+        return cache.get(Key(seed, style, darkTheme))
+    }
+
+    /** Number of lookups that were served from the cache. */
+    @JvmStatic
+    fun hitCount(): Int = cache.hitCount()
+
+    /** Number of lookups that required building a new [ColorScheme]. */
+    @JvmStatic
+    fun missCount(): Int = cache.missCount()
+
+    /** Drops every cached scheme. Hit and miss counters are left untouched. */
+    @JvmStatic
+    fun clear() {
+        cache.evictAll()
+    }
+
+    override fun toString(): String {
+        return "ColorSchemeCache{size=${cache.size()}, hits=${hitCount()}, misses=${missCount()}}"
+    }
+}
@@ -46,8 +46,10 @@ class DerpFestColorProvider(private val context: Context) {
             builder.index = index + 1
 
             // Set light and dark theme colors
-            val lightColorScheme = ColorScheme(color, /* darkTheme= */ false, Style.TONAL_SPOT)
-            val darkColorScheme = ColorScheme(color, /* darkTheme= */ true, Style.TONAL_SPOT)
+            val lightColorScheme =
+                ColorSchemeCache.get(color, /* darkTheme= */ false, Style.TONAL_SPOT)
+            val darkColorScheme =
+                ColorSchemeCache.get(color, /* darkTheme= */ true, Style.TONAL_SPOT)
             
             builder.lightColors = getLightColorPreview(lightColorScheme)
             builder.darkColors = getDarkColorPreview(darkColorScheme)
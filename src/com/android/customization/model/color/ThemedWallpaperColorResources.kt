@@ -19,20 +19,17 @@ package com.android.customization.model.color
 import android.R
 import android.app.WallpaperColors
 import android.content.Context
-import android.provider.Settings
 import android.util.Log
 import com.android.customization.model.ResourceConstants.OVERLAY_CATEGORY_THEME_STYLE
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository
 import com.android.systemui.monet.ColorScheme
 import com.android.systemui.monet.Style
-import com.android.systemui.shared.settings.data.repository.SecureSettingsRepository
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.withContext
-import org.json.JSONException
-import org.json.JSONObject
 
 class ThemedWallpaperColorResources(
     private val wallpaperColors: WallpaperColors,
-    private val secureSettingsRepository: SecureSettingsRepository,
+    private val overlaySettingsRepository: ThemeOverlaySettingsRepository,
 ) : WallpaperColorResources() {
 
     override suspend fun apply(context: Context, callback: () -> Unit) {
@@ -52,21 +49,14 @@ class ThemedWallpaperColorResources(
     }
 
     @Style.Type
-    private suspend fun fetchThemeStyleFromSetting(): Int {
-        val overlayPackageJson =
-            secureSettingsRepository.getString(Settings.Secure.THEME_CUSTOMIZATION_OVERLAY_PACKAGES)
-        return if (!overlayPackageJson.isNullOrEmpty()) {
-            try {
-                val jsonObject = JSONObject(overlayPackageJson)
-                Style.valueOf(jsonObject.getString(OVERLAY_CATEGORY_THEME_STYLE))
-            } catch (e: (JSONException)) {
-                Log.i(TAG, "Failed to parse THEME_CUSTOMIZATION_OVERLAY_PACKAGES.", e)
-                Style.TONAL_SPOT
-            } catch (e: IllegalArgumentException) {
-                Log.i(TAG, "Failed to parse THEME_CUSTOMIZATION_OVERLAY_PACKAGES.", e)
-                Style.TONAL_SPOT
-            }
-        } else {
+    private fun fetchThemeStyleFromSetting(): Int {
+        val styleName =
+            overlaySettingsRepository.getOverlays()[OVERLAY_CATEGORY_THEME_STYLE]
+                ?: return Style.TONAL_SPOT
+        return try {
+            Style.valueOf(styleName)
+        } catch (e: IllegalArgumentException) {
+            Log.i(TAG, "Failed to parse THEME_CUSTOMIZATION_OVERLAY_PACKAGES.", e)
             Style.TONAL_SPOT
         }
     }
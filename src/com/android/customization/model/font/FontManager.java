@@ -21,34 +21,35 @@ import static com.android.customization.model.ResourceConstants.OVERLAY_CATEGORY
 import android.content.Context;
 import android.os.Bundle;
 import android.os.UserHandle;
-import android.provider.Settings;
 import android.text.TextUtils;
-import android.util.Log;
 import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 
 import com.android.customization.model.CustomizationManager;
 import com.android.customization.model.theme.OverlayManagerCompat;
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository;
+import com.android.customization.module.CustomizationInjector;
+import com.android.wallpaper.module.InjectorProvider;
 
 import java.util.Map;
 import java.util.List;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
 public class FontManager implements CustomizationManager<FontOption> {
 
     private static FontManager sFontOptionManager;
     private Context mContext;
     private FontOption mActiveOption;
     private OverlayManagerCompat mOverlayManager;
+    private final ThemeOverlaySettingsRepository mOverlaySettingsRepository;
     private FontOptionProvider mProvider;
     private static final String TAG = "FontManager";
     private static final String KEY_STATE_CURRENT_SELECTION = "FontManager.currentSelection";
 
     FontManager(Context context, OverlayManagerCompat overlayManager, FontOptionProvider provider) {
         mContext = context;
+        mOverlaySettingsRepository = ((CustomizationInjector) InjectorProvider.getInjector())
+                .getThemeOverlaySettingsRepository();
         mProvider = provider;
         mOverlayManager = overlayManager;
     }
@@ -109,33 +110,9 @@ public class FontManager implements CustomizationManager<FontOption> {
     }
 
     private boolean persistOverlay(FontOption toPersist) {
-        String value = Settings.Secure.getStringForUser(mContext.getContentResolver(),
-                Settings.Secure.THEME_CUSTOMIZATION_OVERLAY_PACKAGES, UserHandle.myUserId());
-        JSONObject json;
-        if (value == null) {
-            json = new JSONObject();
-        } else {
-            try {
-                json = new JSONObject(value);
-            } catch (JSONException e) {
-                Log.e(TAG, "Error parsing current settings value:\n" + e.getMessage());
-                return false;
-            }
-        }
-        // removing all currently enabled overlays from the json
-        json.remove(OVERLAY_CATEGORY_FONT);
-        // adding the new ones
-        try {
-            json.put(OVERLAY_CATEGORY_FONT, toPersist.getPackageName());
-        } catch (JSONException e) {
-            Log.e(TAG, "Error adding new settings value:\n" + e.getMessage());
-            return false;
-        }
-        // updating the setting
-        Settings.Secure.putStringForUser(mContext.getContentResolver(),
-                Settings.Secure.THEME_CUSTOMIZATION_OVERLAY_PACKAGES,
-                json.toString(), UserHandle.myUserId());
-        return true;
+        return mOverlaySettingsRepository.newBatch()
+                .put(OVERLAY_CATEGORY_FONT, toPersist.getPackageName())
+                .commit();
     }
 
     public static FontManager getInstance(Context context, OverlayManagerCompat overlayManager) {
@@ -25,6 +25,12 @@ import dagger.hilt.android.qualifiers.ApplicationContext
 import javax.inject.Inject
 import javax.inject.Singleton
 import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.async
+import kotlinx.coroutines.channels.awaitClose
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.callbackFlow
+import kotlinx.coroutines.flow.conflate
+import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.withContext
 
 @Singleton
@@ -33,6 +39,7 @@ class DefaultShapeGridManager
 constructor(
     @ApplicationContext private val context: Context,
     @BackgroundDispatcher private val bgDispatcher: CoroutineDispatcher,
+    private val gridOptionsSource: LauncherGridOptionsSource,
 ) : ShapeGridManager {
 
     private val authorityMetadataKey: String =
@@ -42,35 +49,7 @@ constructor(
     override suspend fun getGridOptions(): List<GridOptionModel>? =
         withContext(bgDispatcher) {
             if (previewUtils.supportsPreview()) {
-                context.contentResolver
-                    .query(previewUtils.getUri(GRID_OPTIONS), null, null, null, null)
-                    ?.use { cursor ->
-                        buildList {
-                            while (cursor.moveToNext()) {
-                                val rows = cursor.getInt(cursor.getColumnIndex(COL_ROWS))
-                                val cols = cursor.getInt(cursor.getColumnIndex(COL_COLS))
-                                val title =
-                                    cursor.getString(cursor.getColumnIndex(COL_GRID_TITLE))
-                                        ?: context.getString(
-                                            com.android.themepicker.R.string.grid_title_pattern,
-                                            cols,
-                                            rows,
-                                        )
-                                add(
-                                    GridOptionModel(
-                                        key = cursor.getString(cursor.getColumnIndex(COL_GRID_KEY)),
-                                        title = title,
-                                        isCurrent =
-                                            cursor
-                                                .getString(cursor.getColumnIndex(COL_IS_DEFAULT))
-                                                .toBoolean(),
-                                        rows = rows,
-                                        cols = cols,
-                                    )
-                                )
-                            }
-                        }
-                    }
+                queryGridOptions()
             } else {
                 null
             }
@@ -79,57 +58,99 @@ constructor(
     override suspend fun getShapeOptions(): List<ShapeOptionModel>? =
         withContext(bgDispatcher) {
             if (previewUtils.supportsPreview()) {
-                context.contentResolver
-                    .query(previewUtils.getUri(SHAPE_OPTIONS), null, null, null, null)
-                    ?.use { cursor ->
-                        buildList {
-                            while (cursor.moveToNext()) {
-                                add(
-                                    ShapeOptionModel(
-                                        key =
-                                            cursor.getString(cursor.getColumnIndex(COL_SHAPE_KEY)),
-                                        title =
-                                            cursor.getString(
-                                                cursor.getColumnIndex(COL_SHAPE_TITLE)
-                                            ),
-                                        path = cursor.getString(cursor.getColumnIndex(COL_PATH)),
-                                        isCurrent =
-                                            cursor
-                                                .getString(cursor.getColumnIndex(COL_IS_DEFAULT))
-                                                .toBoolean(),
-                                    )
-                                )
-                            }
-                        }
-                    }
+                queryShapeOptions()
             } else {
                 null
             }
         }
 
+    override suspend fun getShapeGridOptions(): ShapeGridOptionsModel =
+        withContext(bgDispatcher) {
+            if (previewUtils.supportsPreview()) {
+                // The launcher has no endpoint that returns both lists, so query them
+                // concurrently and pay for one round trip instead of two.
+                val shapeOptions = async { queryShapeOptions() }
+                val gridOptions = async { queryGridOptions() }
+                ShapeGridOptionsModel(
+                    shapeOptions = shapeOptions.await(),
+                    gridOptions = gridOptions.await(),
+                )
+            } else {
+                ShapeGridOptionsModel(shapeOptions = null, gridOptions = null)
+            }
+        }
+
+    private fun queryGridOptions(): List<GridOptionModel>? {
+        return gridOptionsSource.getGridOptions()?.map {
+            GridOptionModel(
+                key = it.name,
+                title = it.title,
+                isCurrent = it.isCurrent,
+                rows = it.rows,
+                cols = it.cols,
+            )
+        }
+    }
+
+    private fun queryShapeOptions(): List<ShapeOptionModel>? {
+        return context.contentResolver
+            .query(previewUtils.getUri(SHAPE_OPTIONS), null, null, null, null)
+            ?.use { cursor ->
+                val keyIndex = cursor.getColumnIndex(COL_SHAPE_KEY)
+                val titleIndex = cursor.getColumnIndex(COL_SHAPE_TITLE)
+                val pathIndex = cursor.getColumnIndex(COL_PATH)
+                val isDefaultIndex = cursor.getColumnIndex(COL_IS_DEFAULT)
+                buildList {
+                    while (cursor.moveToNext()) {
+                        add(
+                            ShapeOptionModel(
+                                key = cursor.getString(keyIndex),
+                                title = cursor.getString(titleIndex),
+                                path = cursor.getString(pathIndex),
+                                isCurrent = cursor.getString(isDefaultIndex).toBoolean(),
+                            )
+                        )
+                    }
+                }
+            }
+    }
+
     override fun applyShapeGridOption(shapeKey: String, gridKey: String): Int {
-        return context.contentResolver.update(
-            previewUtils.getUri(SHAPE_GRID),
-            ContentValues().apply {
-                put(COL_SHAPE_KEY, shapeKey)
-                put(COL_GRID_KEY, gridKey)
-            },
-            null,
-            null,
-        )
+        return context.contentResolver
+            .update(
+                previewUtils.getUri(SHAPE_GRID),
+                ContentValues().apply {
+                    put(COL_SHAPE_KEY, shapeKey)
+                    put(COL_GRID_KEY, gridKey)
+                },
+                null,
+                null,
+            )
+            .also { gridOptionsSource.invalidate() }
     }
 
+    override val shapeGridChanges: Flow<Unit> =
+        callbackFlow {
+                if (!previewUtils.supportsPreview()) {
+                    close()
+                    return@callbackFlow
+                }
+                // Changes come through the grid options source, which drops its cached grid options
+                // before notifying, so that collectors reading them again get the new ones.
+                val listener = LauncherGridOptionsSource.Listener { trySend(Unit) }
+                gridOptionsSource.addListener(listener)
+                awaitClose { gridOptionsSource.removeListener(listener) }
+            }
+            .conflate()
+            .flowOn(bgDispatcher)
+
     companion object {
         const val SHAPE_OPTIONS: String = "shape_options"
-        const val GRID_OPTIONS: String = "list_options"
         const val SHAPE_GRID: String = "default_grid"
         const val COL_SHAPE_KEY: String = "shape_key"
         const val COL_GRID_KEY: String = "name"
         const val COL_GRID_NAME: String = "grid_name"
-        const val COL_GRID_TITLE: String = "grid_title"
         const val COL_SHAPE_TITLE: String = "shape_title"
-        const val COL_ROWS: String = "rows"
-        const val COL_COLS: String = "cols"
         const val COL_IS_DEFAULT: String = "is_default"
         const val COL_PATH: String = "path"
     }
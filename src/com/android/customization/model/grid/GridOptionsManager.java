@@ -20,7 +20,6 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
-import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.LiveData;
 
@@ -58,7 +57,8 @@ public class GridOptionsManager implements CustomizationManager<GridOption> {
                     (ThemesUserEventLogger) injector.getUserEventLogger();
             sGridOptionsManager = new GridOptionsManager(
                     new LauncherGridOptionsProvider(appContext,
-                            appContext.getString(R.string.grid_control_metadata_name)),
+                            appContext.getString(R.string.grid_control_metadata_name),
+                            injector.getLauncherGridOptionsSource()),
                     eventLogger);
         }
         return sGridOptionsManager;
@@ -120,7 +120,7 @@ public class GridOptionsManager implements CustomizationManager<GridOption> {
     /**
      * Returns an observable that receives a new value each time that the grid options are changed.
      */
-    public LiveData<Object> getOptionChangeObservable(@Nullable Handler handler) {
-        return mProvider.getOptionChangeObservable(handler);
+    public LiveData<Object> getOptionChangeObservable() {
+        return mProvider.getOptionChangeObservable();
     }
 }
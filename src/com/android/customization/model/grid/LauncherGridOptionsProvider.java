@@ -15,14 +15,9 @@
  */
 package com.android.customization.model.grid;
 
-import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.content.Context;
 import android.content.res.Resources;
-import android.database.ContentObserver;
-import android.database.Cursor;
-import android.net.Uri;
-import android.os.Handler;
 
 import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
@@ -30,7 +25,7 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.android.customization.model.ResourceConstants;
-import com.android.themepicker.R;
+import com.android.customization.model.grid.LauncherGridOptionsSource.GridOptionRow;
 import com.android.wallpaper.config.BaseFlags;
 import com.android.wallpaper.util.PreviewUtils;
 
@@ -42,71 +37,60 @@ import java.util.List;
  */
 public class LauncherGridOptionsProvider {
 
-    private static final String LIST_OPTIONS = "list_options";
     private static final String PREVIEW = "preview";
     private static final String DEFAULT_GRID = "default_grid";
 
-    private static final String COL_NAME = "name";
-    private static final String COL_GRID_TITLE = "grid_title";
-    private static final String COL_ROWS = "rows";
-    private static final String COL_COLS = "cols";
-    private static final String COL_PREVIEW_COUNT = "preview_count";
-    private static final String COL_IS_DEFAULT = "is_default";
-
     private static final String METADATA_KEY_PREVIEW_VERSION = "preview_version";
 
     private final Context mContext;
     private final PreviewUtils mPreviewUtils;
+    private final LauncherGridOptionsSource mSource;
     private final boolean mIsGridApplyButtonEnabled;
     private List<GridOption> mOptions;
+    // The source rows that mOptions were built from.
+    private List<GridOptionRow> mOptionRows;
     private OptionChangeLiveData mLiveData;
 
-    public LauncherGridOptionsProvider(Context context, String authorityMetadataKey) {
+    public LauncherGridOptionsProvider(Context context, String authorityMetadataKey,
+            LauncherGridOptionsSource source) {
         mPreviewUtils = new PreviewUtils(context, authorityMetadataKey);
         mContext = context;
+        mSource = source;
         mIsGridApplyButtonEnabled = BaseFlags.get().isGridApplyButtonEnabled(context);
     }
 
     boolean areGridsAvailable() {
-        return mPreviewUtils.supportsPreview();
+        return mSource.areGridsAvailable();
     }
 
     /**
      * Retrieve the available grids.
-     * @param reload whether to reload grid options if they're cached.
+     *
+     * <p>The launcher is only queried if {@link LauncherGridOptionsSource} has no options cached.
+     * @param reload whether to build new {@link GridOption}s even if the options are unchanged.
      */
     @WorkerThread
     @Nullable
     List<GridOption> fetch(boolean reload) {
-        if (!areGridsAvailable()) {
+        List<GridOptionRow> rows = mSource.getGridOptions();
+        if (rows == null) {
+            mOptions = null;
+            mOptionRows = null;
             return null;
         }
-        if (mOptions != null && !reload) {
+        if (mOptions != null && !reload && rows == mOptionRows) {
             return mOptions;
         }
-        ContentResolver resolver = mContext.getContentResolver();
         String iconPath = mContext.getResources().getString(Resources.getSystem().getIdentifier(
                 ResourceConstants.CONFIG_ICON_MASK, "string", ResourceConstants.ANDROID_PACKAGE));
-        try (Cursor c = resolver.query(mPreviewUtils.getUri(LIST_OPTIONS), null, null, null,
-                null)) {
-            mOptions = new ArrayList<>();
-            while(c.moveToNext()) {
-                String name = c.getString(c.getColumnIndex(COL_NAME));
-                String title = c.getString(c.getColumnIndex(COL_GRID_TITLE));
-
-                int rows = c.getInt(c.getColumnIndex(COL_ROWS));
-                int cols = c.getInt(c.getColumnIndex(COL_COLS));
-                int previewCount = c.getInt(c.getColumnIndex(COL_PREVIEW_COUNT));
-                boolean isSet = Boolean.parseBoolean(c.getString(c.getColumnIndex(COL_IS_DEFAULT)));
-                if (title == null) {
-                    title = mContext.getString(R.string.grid_title_pattern, cols, rows);
-                }
-                mOptions.add(new GridOption(title, name, isSet, rows, cols,
-                        mPreviewUtils.getUri(PREVIEW), previewCount, iconPath));
-            }
-        } catch (Exception e) {
-            mOptions = null;
+        List<GridOption> options = new ArrayList<>(rows.size());
+        for (GridOptionRow row : rows) {
+            options.add(new GridOption(row.getTitle(), row.getName(), row.isCurrent(),
+                    row.getRows(), row.getCols(), mPreviewUtils.getUri(PREVIEW),
+                    row.getPreviewCount(), iconPath));
         }
+        mOptions = options;
+        mOptionRows = rows;
         return mOptions;
     }
 
@@ -118,19 +102,19 @@ public class LauncherGridOptionsProvider {
         ContentValues values = new ContentValues();
         values.put("name", name);
         values.put("enable_apply_button", mIsGridApplyButtonEnabled);
-        return mContext.getContentResolver().update(mPreviewUtils.getUri(DEFAULT_GRID), values,
-                null, null);
+        int updated = mContext.getContentResolver().update(mPreviewUtils.getUri(DEFAULT_GRID),
+                values, null, null);
+        mSource.invalidate();
+        return updated;
     }
 
     /**
      * Returns an observable that receives a new value each time that the grid options are changed.
      * Do not call if {@link #areGridsAvailable()} returns false
      */
-    public LiveData<Object> getOptionChangeObservable(
-            @Nullable Handler handler) {
+    public LiveData<Object> getOptionChangeObservable() {
         if (mLiveData == null) {
-            mLiveData = new OptionChangeLiveData(
-                    mContext, mPreviewUtils.getUri(DEFAULT_GRID), handler);
+            mLiveData = new OptionChangeLiveData(mContext, mSource);
         }
 
         return mLiveData;
@@ -138,43 +122,32 @@ public class LauncherGridOptionsProvider {
 
     private static class OptionChangeLiveData extends MutableLiveData<Object> {
 
-        private final ContentResolver mContentResolver;
-        private final Uri mUri;
-        private final ContentObserver mContentObserver;
-
-        OptionChangeLiveData(
-                Context context,
-                Uri uri,
-                @Nullable Handler handler) {
-            mContentResolver = context.getContentResolver();
-            mUri = uri;
-            mContentObserver = new ContentObserver(handler) {
-                @Override
-                public void onChange(boolean selfChange) {
-                    // If grid apply button is enabled, user has previewed the grid before applying
-                    // the grid change. Thus there is no need to preview again (which will cause a
-                    // blank preview as launcher's is loader thread is busy reloading workspace)
-                    // after applying grid change. Thus we should ignore ContentObserver#onChange
-                    // from launcher
-                    if (BaseFlags.get().isGridApplyButtonEnabled(context.getApplicationContext())) {
-                        return;
-                    }
-                    postValue(new Object());
+        private final LauncherGridOptionsSource mSource;
+        private final LauncherGridOptionsSource.Listener mListener;
+
+        OptionChangeLiveData(Context context, LauncherGridOptionsSource source) {
+            mSource = source;
+            mListener = () -> {
+                // If grid apply button is enabled, user has previewed the grid before applying
+                // the grid change. Thus there is no need to preview again (which will cause a
+                // blank preview as launcher's is loader thread is busy reloading workspace)
+                // after applying grid change. Thus we should ignore ContentObserver#onChange
+                // from launcher
+                if (BaseFlags.get().isGridApplyButtonEnabled(context.getApplicationContext())) {
+                    return;
                 }
+                postValue(new Object());
             };
         }
 
         @Override
         protected void onActive() {
-            mContentResolver.registerContentObserver(
-                    mUri,
-                    /* notifyForDescendants= */ true,
-                    mContentObserver);
+            mSource.addListener(mListener);
         }
 
         @Override
         protected void onInactive() {
-            mContentResolver.unregisterContentObserver(mContentObserver);
+            mSource.removeListener(mListener);
         }
     }
 }
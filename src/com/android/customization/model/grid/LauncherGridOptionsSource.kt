@@ -0,0 +1,192 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.model.grid
+
+import android.content.Context
+import android.database.ContentObserver
+import android.util.Log
+import androidx.annotation.VisibleForTesting
+import androidx.annotation.WorkerThread
+import com.android.wallpaper.R
+import com.android.wallpaper.util.PreviewUtils
+import dagger.hilt.android.qualifiers.ApplicationContext
+import java.util.concurrent.CopyOnWriteArrayList
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Single, cached view of the grid options listed by the launcher, shared by
+ * [LauncherGridOptionsProvider] and [DefaultShapeGridManager].
+ *
+ * The options are queried once and kept until the launcher reports a grid change through the
+ * single [ContentObserver] on its `default_grid` URI, or until a grid is applied through
+ * [invalidate]. Listeners are notified after the cached options are dropped, so a listener that
+ * reads the options again always gets the launcher's new ones.
+ *
+ * Java callers outside of Hilt get the instance through
+ * [com.android.customization.module.CustomizationInjector.getLauncherGridOptionsSource].
+ */
+@Singleton
+class LauncherGridOptionsSource
+@VisibleForTesting
+constructor(private val context: Context, private val previewUtils: PreviewUtils) {
+
+    @Inject
+    constructor(
+        @ApplicationContext context: Context
+    ) : this(
+        context,
+        PreviewUtils(context, context.getString(R.string.grid_control_metadata_name)),
+    )
+
+    /** A grid option as listed by the launcher. */
+    data class GridOptionRow(
+        val name: String,
+        val title: String,
+        val rows: Int,
+        val cols: Int,
+        val previewCount: Int,
+        val isCurrent: Boolean,
+    )
+
+    /** Callback for changes of the launcher's grid options. */
+    fun interface Listener {
+        fun onGridOptionsChanged()
+    }
+
+    private val listeners = CopyOnWriteArrayList<Listener>()
+    // Guards cachedOptions, generation and isObserving.
+    private val lock = Any()
+    private var cachedOptions: List<GridOptionRow>? = null
+    // Bumped on every invalidation, so that a query that raced with a change is not cached.
+    private var generation = 0
+    private var isObserving = false
+
+    fun areGridsAvailable(): Boolean = previewUtils.supportsPreview()
+
+    /**
+     * Returns the launcher's grid options, querying the launcher only if they are not cached, or
+     * null if the launcher has no grid options or they could not be read.
+     */
+    @WorkerThread
+    fun getGridOptions(): List<GridOptionRow>? {
+        if (!previewUtils.supportsPreview()) {
+            return null
+        }
+        val queryGeneration =
+            synchronized(lock) {
+                startObservingLocked()
+                cachedOptions?.let {
+                    return it
+                }
+                generation
+            }
+        val options = queryGridOptions()
+        synchronized(lock) {
+            if (generation == queryGeneration) {
+                cachedOptions = options
+            }
+        }
+        return options
+    }
+
+    /** Drops the cached options, e.g. after applying a grid. */
+    fun invalidate() {
+        synchronized(lock) {
+            cachedOptions = null
+            generation++
+        }
+    }
+
+    fun addListener(listener: Listener) {
+        listeners.add(listener)
+        if (previewUtils.supportsPreview()) {
+            synchronized(lock) { startObservingLocked() }
+        }
+    }
+
+    fun removeListener(listener: Listener) {
+        listeners.remove(listener)
+    }
+
+    // Must be called with lock held.
+    private fun startObservingLocked() {
+        if (isObserving) {
+            return
+        }
+        isObserving = true
+        context.contentResolver.registerContentObserver(
+            previewUtils.getUri(DEFAULT_GRID),
+            /* notifyForDescendants= */ true,
+            object : ContentObserver(/* handler= */ null) {
+                override fun onChange(selfChange: Boolean) {
+                    invalidate()
+                    listeners.forEach { it.onGridOptionsChanged() }
+                }
+            },
+        )
+    }
+
+    private fun queryGridOptions(): List<GridOptionRow>? {
+        return try {
+            context.contentResolver
+                .query(previewUtils.getUri(LIST_OPTIONS), null, null, null, null)
+                ?.use { cursor ->
+                    val nameIndex = cursor.getColumnIndex(COL_NAME)
+                    val titleIndex = cursor.getColumnIndex(COL_GRID_TITLE)
+                    val rowsIndex = cursor.getColumnIndex(COL_ROWS)
+                    val colsIndex = cursor.getColumnIndex(COL_COLS)
+                    val previewCountIndex = cursor.getColumnIndex(COL_PREVIEW_COUNT)
+                    val isDefaultIndex = cursor.getColumnIndex(COL_IS_DEFAULT)
+                    buildList {
+                        while (cursor.moveToNext()) {
+                            val rows = cursor.getInt(rowsIndex)
+                            val cols = cursor.getInt(colsIndex)
+                            add(
+                                GridOptionRow(
+                                    name = cursor.getString(nameIndex),
+                                    title =
+                                        cursor.getString(titleIndex)
+                                            ?: context.getString(
+                                                com.android.themepicker.R.string
+                                                    .grid_title_pattern,
+                                                cols,
+                                                rows,
+                                            ),
+                                    rows = rows,
+                                    cols = cols,
+                                    previewCount =
+                                        if (previewCountIndex >= 0) {
+                                            cursor.getInt(previewCountIndex)
+                                        } else {
+                                            0
+                                        },
+                                    isCurrent = cursor.getString(isDefaultIndex).toBoolean(),
+                                )
+                            )
+                        }
+                    }
+                }
+        } catch (e: Exception) {
+            Log.w(TAG, "Failed to query the launcher grid options", e)
+            null
+        }
+    }
+
+    companion object {
+        private const val TAG = "LauncherGridOptionsSource"
+
+        private const val LIST_OPTIONS = "list_options"
+        private const val DEFAULT_GRID = "default_grid"
+
+        private const val COL_NAME = "name"
+        private const val COL_GRID_TITLE = "grid_title"
+        private const val COL_ROWS = "rows"
+        private const val COL_COLS = "cols"
+        private const val COL_PREVIEW_COUNT = "preview_count"
+        private const val COL_IS_DEFAULT = "is_default"
+    }
+}
@@ -16,11 +16,22 @@
 
 package com.android.customization.model.grid
 
+import kotlinx.coroutines.flow.Flow
+
 interface ShapeGridManager {
 
     suspend fun getGridOptions(): List<GridOptionModel>?
 
     suspend fun getShapeOptions(): List<ShapeOptionModel>?
 
+    /**
+     * Returns the shape and grid options together, at the cost of a single round trip to the
+     * launcher rather than one per option list.
+     */
+    suspend fun getShapeGridOptions(): ShapeGridOptionsModel
+
     fun applyShapeGridOption(shapeKey: String, gridKey: String): Int
+
+    /** Emits each time the launcher reports that its shape or grid has changed. */
+    val shapeGridChanges: Flow<Unit>
 }
@@ -0,0 +1,12 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.model.grid
+
+/** The shape and grid options of the launcher, read together. */
+data class ShapeGridOptionsModel(
+    val shapeOptions: List<ShapeOptionModel>?,
+    val gridOptions: List<GridOptionModel>?,
+)
@@ -22,28 +22,28 @@ import static com.android.customization.model.ResourceConstants.OVERLAY_CATEGORY
 import android.content.Context;
 import android.os.Bundle;
 import android.os.UserHandle;
-import android.provider.Settings;
 import android.text.TextUtils;
-import android.util.Log;
 import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 
 import com.android.customization.model.CustomizationManager;
 import com.android.customization.model.theme.OverlayManagerCompat;
+import com.android.customization.model.theme.OverlaySettingsBatch;
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository;
+import com.android.customization.module.CustomizationInjector;
+import com.android.wallpaper.module.InjectorProvider;
 
 import java.util.Map;
 import java.util.List;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
 public class IconPackManager implements CustomizationManager<IconPackOption> {
 
     private static IconPackManager sIconPackOptionManager;
     private Context mContext;
     private IconPackOption mActiveOption;
     private OverlayManagerCompat mOverlayManager;
+    private final ThemeOverlaySettingsRepository mOverlaySettingsRepository;
     private IconPackOptionProvider mProvider;
     private static final String TAG = "IconPackManager";
     private static final String KEY_STATE_CURRENT_SELECTION = "IconPackManager.currentSelection";
@@ -51,6 +51,8 @@ public class IconPackManager implements CustomizationManager<IconPackOption> {
 
     IconPackManager(Context context, OverlayManagerCompat overlayManager, IconPackOptionProvider provider) {
         mContext = context;
+        mOverlaySettingsRepository = ((CustomizationInjector) InjectorProvider.getInjector())
+                .getThemeOverlaySettingsRepository();
         mProvider = provider;
         mOverlayManager = overlayManager;
     }
@@ -97,37 +99,12 @@ public class IconPackManager implements CustomizationManager<IconPackOption> {
     }
 
     private boolean persistOverlay(IconPackOption toPersist) {
-        String value = Settings.Secure.getStringForUser(mContext.getContentResolver(),
-                Settings.Secure.THEME_CUSTOMIZATION_OVERLAY_PACKAGES, UserHandle.myUserId());
-        JSONObject json;
-        if (value == null) {
-            json = new JSONObject();
-        } else {
-            try {
-                json = new JSONObject(value);
-            } catch (JSONException e) {
-                Log.e(TAG, "Error parsing current settings value:\n" + e.getMessage());
-                return false;
-            }
-        }
-        // removing all currently enabled overlays from the json
+        OverlaySettingsBatch batch = mOverlaySettingsRepository.newBatch();
+        // replacing all currently enabled overlays
         for (String categoryName : mCurrentCategories) {
-            json.remove(categoryName);
-        }
-        // adding the new ones
-        for (String categoryName : mCurrentCategories) {
-            try {
-                json.put(categoryName, toPersist.getOverlayPackages().get(categoryName));
-            } catch (JSONException e) {
-                Log.e(TAG, "Error adding new settings value:\n" + e.getMessage());
-                return false;
-            }
+            batch.put(categoryName, toPersist.getOverlayPackages().get(categoryName));
         }
-        // updating the setting
-        Settings.Secure.putStringForUser(mContext.getContentResolver(),
-                Settings.Secure.THEME_CUSTOMIZATION_OVERLAY_PACKAGES,
-                json.toString(), UserHandle.myUserId());
-        return true;
+        return batch.commit();
     }
 
     public static IconPackManager getInstance(Context context, OverlayManagerCompat overlayManager) {
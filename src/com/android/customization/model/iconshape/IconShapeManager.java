@@ -20,32 +20,33 @@ import static com.android.customization.model.ResourceConstants.OVERLAY_CATEGORY
 
 import android.content.Context;
 import android.os.UserHandle;
-import android.provider.Settings;
-import android.util.Log;
 import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 
 import com.android.customization.model.CustomizationManager;
 import com.android.customization.model.theme.OverlayManagerCompat;
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository;
+import com.android.customization.module.CustomizationInjector;
+import com.android.wallpaper.module.InjectorProvider;
 
 import java.util.List;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
 public class IconShapeManager implements CustomizationManager<IconShapeOption> {
 
     private static IconShapeManager sIconShapeOptionManager;
     private Context mContext;
     private IconShapeOption mActiveOption;
     private OverlayManagerCompat mOverlayManager;
+    private final ThemeOverlaySettingsRepository mOverlaySettingsRepository;
     private IconShapeOptionProvider mProvider;
     private static final String TAG = "IconShapeManager";
     private static final String KEY_STATE_CURRENT_SELECTION = "IconShapeManager.currentSelection";
 
     IconShapeManager(Context context, OverlayManagerCompat overlayManager, IconShapeOptionProvider provider) {
         mContext = context;
+        mOverlaySettingsRepository = ((CustomizationInjector) InjectorProvider.getInjector())
+                .getThemeOverlaySettingsRepository();
         mProvider = provider;
         mOverlayManager = overlayManager;
     }
@@ -97,33 +98,9 @@ public class IconShapeManager implements CustomizationManager<IconShapeOption> {
     }
 
     private boolean persistOverlay(IconShapeOption toPersist) {
-        String value = Settings.Secure.getStringForUser(mContext.getContentResolver(),
-                Settings.Secure.THEME_CUSTOMIZATION_OVERLAY_PACKAGES, UserHandle.myUserId());
-        JSONObject json;
-        if (value == null) {
-            json = new JSONObject();
-        } else {
-            try {
-                json = new JSONObject(value);
-            } catch (JSONException e) {
-                Log.e(TAG, "Error parsing current settings value:\n" + e.getMessage());
-                return false;
-            }
-        }
-        // removing all currently enabled overlays from the json
-        json.remove(OVERLAY_CATEGORY_SHAPE);
-        // adding the new ones
-        try {
-            json.put(OVERLAY_CATEGORY_SHAPE, toPersist.getPackageName());
-        } catch (JSONException e) {
-            Log.e(TAG, "Error adding new settings value:\n" + e.getMessage());
-            return false;
-        }
-        // updating the setting
-        Settings.Secure.putStringForUser(mContext.getContentResolver(),
-                Settings.Secure.THEME_CUSTOMIZATION_OVERLAY_PACKAGES,
-                json.toString(), UserHandle.myUserId());
-        return true;
+        return mOverlaySettingsRepository.newBatch()
+                .put(OVERLAY_CATEGORY_SHAPE, toPersist.getPackageName())
+                .commit();
     }
 
     public static IconShapeManager getInstance(Context context, OverlayManagerCompat overlayManager) {
@@ -25,32 +25,34 @@ import android.os.Bundle;
 import android.os.UserHandle;
 import android.provider.Settings;
 import android.text.TextUtils;
-import android.util.Log;
 import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 
 import com.android.customization.model.CustomizationManager;
 import com.android.customization.model.theme.OverlayManagerCompat;
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository;
+import com.android.customization.module.CustomizationInjector;
+import com.android.wallpaper.module.InjectorProvider;
 
 import java.util.Map;
 import java.util.List;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
 public class LockFontManager implements CustomizationManager<LockFontOption> {
 
     private static LockFontManager sLockFontOptionManager;
     private Context mContext;
     private LockFontOption mActiveOption;
     private OverlayManagerCompat mOverlayManager;
+    private final ThemeOverlaySettingsRepository mOverlaySettingsRepository;
     private LockFontOptionProvider mProvider;
     private static final String TAG = "LockFontManager";
     private static final String KEY_STATE_CURRENT_SELECTION = "LockFontManager.currentSelection";
 
     LockFontManager(Context context, OverlayManagerCompat overlayManager, LockFontOptionProvider provider) {
         mContext = context;
+        mOverlaySettingsRepository = ((CustomizationInjector) InjectorProvider.getInjector())
+                .getThemeOverlaySettingsRepository();
         mProvider = provider;
         mOverlayManager = overlayManager;
     }
@@ -118,32 +120,12 @@ public class LockFontManager implements CustomizationManager<LockFontOption> {
     }
 
     private boolean persistOverlay(LockFontOption toPersist) {
-        String value = Settings.Secure.getStringForUser(mContext.getContentResolver(),
-                Settings.Secure.THEME_CUSTOMIZATION_OVERLAY_PACKAGES, UserHandle.myUserId());
-        JSONObject json;
-        if (value == null) {
-            json = new JSONObject();
-        } else {
-            try {
-                json = new JSONObject(value);
-            } catch (JSONException e) {
-                Log.e(TAG, "Error parsing current settings value:\n" + e.getMessage());
-                return false;
-            }
-        }
-        // removing all currently enabled overlays from the json
-        json.remove(OVERLAY_CATEGORY_LOCKFONT);
-        // adding the new ones
-        try {
-            json.put(OVERLAY_CATEGORY_LOCKFONT, toPersist.getPackageName());
-        } catch (JSONException e) {
-            Log.e(TAG, "Error adding new settings value:\n" + e.getMessage());
+        boolean written = mOverlaySettingsRepository.newBatch()
+                .put(OVERLAY_CATEGORY_LOCKFONT, toPersist.getPackageName())
+                .commit();
+        if (!written) {
             return false;
         }
-        // updating the setting
-        Settings.Secure.putStringForUser(mContext.getContentResolver(),
-                Settings.Secure.THEME_CUSTOMIZATION_OVERLAY_PACKAGES,
-                json.toString(), UserHandle.myUserId());
         // TODO: remove this until i find a way to rebuild keyguard blueprint views during theme changed
         restartSystemUI();
         return true;
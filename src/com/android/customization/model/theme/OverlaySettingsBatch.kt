@@ -0,0 +1,49 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.model.theme
+
+/**
+ * Stages edits to several categories of [ThemeOverlaySettingsRepository]'s setting and writes them
+ * in a single update, so that an option that sets several categories, such as a color option's
+ * palette, source, index and style, triggers one system theme change.
+ *
+ * Obtain an instance from [ThemeOverlaySettingsRepository.newBatch]. Batches are not thread-safe
+ * and are meant to be committed once.
+ */
+class OverlaySettingsBatch
+internal constructor(private val repository: ThemeOverlaySettingsRepository) {
+
+    private val edits = LinkedHashMap<String, Any?>()
+
+    /**
+     * Stages [value] for [category]. A null value removes the category from the setting. Later
+     * edits to the same category replace earlier ones.
+     */
+    fun put(category: String, value: Any?): OverlaySettingsBatch {
+        edits.remove(category)
+        edits[category] = value
+        return this
+    }
+
+    /** Stages the removal of [category] from the setting. */
+    fun remove(category: String): OverlaySettingsBatch {
+        return put(category, null)
+    }
+
+    fun isEmpty(): Boolean = edits.isEmpty()
+
+    /**
+     * Applies every staged edit on top of the current setting value and writes the result.
+     *
+     * @return true if the setting was written
+     */
+    fun commit(): Boolean {
+        if (edits.isEmpty()) {
+            return true
+        }
+        return repository.commit(edits)
+    }
+}
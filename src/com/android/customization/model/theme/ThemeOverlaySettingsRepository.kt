@@ -0,0 +1,177 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.model.theme
+
+import android.content.ContentResolver
+import android.content.Context
+import android.database.ContentObserver
+import android.net.Uri
+import android.provider.Settings
+import android.util.Log
+import androidx.annotation.VisibleForTesting
+import com.android.customization.model.ResourceConstants
+import com.android.customization.model.ResourceConstants.THEME_SETTING
+import dagger.hilt.android.qualifiers.ApplicationContext
+import java.util.concurrent.CopyOnWriteArrayList
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import org.json.JSONException
+import org.json.JSONObject
+
+/**
+ * Single, cached view of [Settings.Secure.THEME_CUSTOMIZATION_OVERLAY_PACKAGES] shared by every
+ * customization manager.
+ *
+ * The setting is read once and kept as an immutable [Snapshot]. A single [ContentObserver] replaces
+ * the snapshot whenever the setting changes, and writes made through [put] update it immediately,
+ * so readers never need a Binder call or a JSON parse of their own.
+ *
+ * Java callers outside of Hilt get the instance through
+ * [com.android.customization.module.CustomizationInjector.getThemeOverlaySettingsRepository].
+ */
+@Singleton
+class ThemeOverlaySettingsRepository
+@VisibleForTesting
+constructor(private val contentResolver: ContentResolver) {
+
+    @Inject
+    constructor(@ApplicationContext context: Context) : this(context.contentResolver)
+
+    /** An immutable, parsed value of the overlay packages setting. */
+    class Snapshot(
+        /** The raw setting value, or null if the setting is unset. */
+        val serialized: String?
+    ) {
+        /** Every top level entry of the setting, with values coerced to strings. */
+        val overlays: Map<String, String> by lazy { parse(serialized) }
+    }
+
+    /** Callback for Java callers that cannot collect [snapshot]. */
+    fun interface Listener {
+        fun onOverlaySettingsChanged(snapshot: Snapshot)
+    }
+
+    private val listeners = CopyOnWriteArrayList<Listener>()
+    private val commitLock = Any()
+    private val _snapshot = MutableStateFlow(read())
+
+    /** The latest snapshot of the setting. */
+    val snapshot: StateFlow<Snapshot> = _snapshot.asStateFlow()
+
+    init {
+        contentResolver.registerContentObserver(
+            Settings.Secure.getUriFor(ResourceConstants.THEME_SETTING),
+            /* notifyForDescendants= */ false,
+            object : ContentObserver(/* handler= */ null) {
+                override fun onChange(selfChange: Boolean, uri: Uri?) {
+                    publish(read())
+                }
+            },
+        )
+    }
+
+    /** Returns the latest snapshot of the setting. */
+    fun getSnapshot(): Snapshot = _snapshot.value
+
+    /** Returns the raw setting value, the same as reading it from [Settings.Secure]. */
+    fun getSerialized(): String? = _snapshot.value.serialized
+
+    /** Returns the parsed entries of the setting. */
+    fun getOverlays(): Map<String, String> = _snapshot.value.overlays
+
+    /**
+     * Writes [serialized] to the setting and publishes it as the new snapshot.
+     *
+     * @return true if the setting was written
+     */
+    fun put(serialized: String): Boolean {
+        val written =
+            Settings.Secure.putString(contentResolver, ResourceConstants.THEME_SETTING, serialized)
+        if (written) {
+            publish(Snapshot(serialized))
+        }
+        return written
+    }
+
+    /** Returns a new, empty [OverlaySettingsBatch] that commits through this repository. */
+    fun newBatch(): OverlaySettingsBatch = OverlaySettingsBatch(this)
+
+    /**
+     * Applies [edits] on top of the current setting value and writes the result in one update.
+     *
+     * Commits from this process are serialized and each one re-reads the setting right before
+     * writing, so concurrent commits here never drop each other's edits. Settings has no
+     * compare-and-swap, so a write from another process that lands between the read and the write
+     * is overwritten: the last writer wins.
+     */
+    internal fun commit(edits: Map<String, Any?>): Boolean {
+        synchronized(commitLock) {
+            val base = Settings.Secure.getString(contentResolver, THEME_SETTING)
+            val json =
+                try {
+                    if (base.isNullOrEmpty()) JSONObject() else JSONObject(base)
+                } catch (e: JSONException) {
+                    Log.e(TAG, "Error parsing current settings value", e)
+                    return false
+                }
+            try {
+                // JSONObject#put removes the mapping when the value is null.
+                edits.forEach { (category, value) -> json.put(category, value) }
+            } catch (e: JSONException) {
+                Log.e(TAG, "Error adding new settings value", e)
+                return false
+            }
+            return put(json.toString())
+        }
+    }
+
+    fun addListener(listener: Listener) {
+        listeners.add(listener)
+    }
+
+    fun removeListener(listener: Listener) {
+        listeners.remove(listener)
+    }
+
+    private fun read(): Snapshot {
+        return Snapshot(Settings.Secure.getString(contentResolver, ResourceConstants.THEME_SETTING))
+    }
+
+    private fun publish(snapshot: Snapshot) {
+        // The observer fires for our own writes too; skip it when nothing actually changed.
+        if (snapshot.serialized == _snapshot.value.serialized) {
+            return
+        }
+        _snapshot.value = snapshot
+        listeners.forEach { it.onOverlaySettingsChanged(snapshot) }
+    }
+
+    companion object {
+        private const val TAG = "ThemeOverlaySettingsRepository"
+
+        private fun parse(serialized: String?): Map<String, String> {
+            if (serialized.isNullOrEmpty()) {
+                return emptyMap()
+            }
+            return try {
+                val json = JSONObject(serialized)
+                buildMap {
+                    json.keys().forEach { key ->
+                        if (!json.isNull(key)) {
+                            put(key, json.getString(key))
+                        }
+                    }
+                }
+            } catch (e: JSONException) {
+                Log.e(TAG, "Failed to parse ${ResourceConstants.THEME_SETTING}", e)
+                emptyMap()
+            }
+        }
+    }
+}
@@ -18,6 +18,8 @@ package com.android.customization.module
 import android.content.Context
 import android.content.res.Resources
 import androidx.activity.ComponentActivity
+import com.android.customization.model.grid.LauncherGridOptionsSource
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository
 import com.android.customization.picker.clock.domain.interactor.ClockPickerInteractor
 import com.android.customization.picker.clock.ui.view.ClockViewFactory
 import com.android.customization.picker.clock.ui.viewmodel.ClockCarouselViewModel
@@ -38,7 +40,6 @@ interface CustomizationInjector : Injector {
 
     fun getClockCarouselViewModelFactory(
         interactor: ClockPickerInteractor,
-        clockViewFactory: ClockViewFactory,
         resources: Resources,
     ): ClockCarouselViewModel.Factory
 
@@ -49,4 +50,8 @@ interface CustomizationInjector : Injector {
         wallpaperColorsRepository: WallpaperColorsRepository,
         clockViewFactory: ClockViewFactory,
     ): ClockSettingsViewModel.Factory
+
+    fun getThemeOverlaySettingsRepository(): ThemeOverlaySettingsRepository
+
+    fun getLauncherGridOptionsSource(): LauncherGridOptionsSource
 }
@@ -31,8 +31,10 @@ import com.android.customization.model.color.ColorOptionsProvider.COLOR_SOURCE_P
 import com.android.customization.model.color.ThemedWallpaperColorResources
 import com.android.customization.model.color.WallpaperColorResources
 import com.android.customization.model.grid.GridOptionsManager
+import com.android.customization.model.grid.LauncherGridOptionsSource
 import com.android.customization.model.mode.DarkModeSnapshotRestorer
 import com.android.customization.model.theme.OverlayManagerCompat
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository
 import com.android.customization.model.themedicon.ThemedIconSwitchProvider
 import com.android.customization.model.themedicon.data.repository.ThemeIconRepository
 import com.android.customization.model.themedicon.domain.interactor.ThemedIconInteractor
@@ -109,6 +111,9 @@ constructor(
     private val systemSettingsRepository: Lazy<SystemSettingsRepository>,
     private val clockPickerInteractor: Lazy<ClockPickerInteractor>,
     private val clockPickerSnapshotRestorer: Lazy<ClockPickerSnapshotRestorer>,
+    private val themeOverlaySettingsRepository: Lazy<ThemeOverlaySettingsRepository>,
+    private val launcherGridOptionsSource: Lazy<LauncherGridOptionsSource>,
+    private val colorCustomizationManager: Lazy<ColorCustomizationManager>,
     displayUtils: Lazy<DisplayUtils>,
     requester: Lazy<Requester>,
     networkStatusNotifier: Lazy<NetworkStatusNotifier>,
@@ -150,7 +155,6 @@ constructor(
     private var notificationSectionViewModelFactory: NotificationSectionViewModel.Factory? = null
     private var qsSectionViewModelFactory: QSSectionViewModel.Factory? = null
     private var colorPickerViewModelFactory: ColorPickerViewModel.Factory? = null
-    private var colorCustomizationManager: ColorCustomizationManager? = null
     private var darkModeSnapshotRestorer: DarkModeSnapshotRestorer? = null
     private var themedIconSnapshotRestorer: ThemedIconSnapshotRestorer? = null
     private var themedIconInteractor: ThemedIconInteractor? = null
@@ -173,7 +177,6 @@ constructor(
                     getFlags(),
                     getClockCarouselViewModelFactory(
                         interactor = clockPickerInteractor.get(),
-                        clockViewFactory = clockViewFactory,
                         resources = resources,
                     ),
                     clockViewFactory,
@@ -232,6 +235,14 @@ constructor(
         return injectedWallpaperInteractor.get()
     }
 
+    override fun getThemeOverlaySettingsRepository(): ThemeOverlaySettingsRepository {
+        return themeOverlaySettingsRepository.get()
+    }
+
+    override fun getLauncherGridOptionsSource(): LauncherGridOptionsSource {
+        return launcherGridOptionsSource.get()
+    }
+
     override fun getKeyguardQuickAffordancePickerInteractor(
         context: Context
     ): KeyguardQuickAffordancePickerInteractor {
@@ -299,14 +310,12 @@ constructor(
 
     override fun getClockCarouselViewModelFactory(
         interactor: ClockPickerInteractor,
-        clockViewFactory: ClockViewFactory,
         resources: Resources,
     ): ClockCarouselViewModel.Factory {
         return clockCarouselViewModelFactory
             ?: ClockCarouselViewModel.Factory(
                     interactor,
                     bgDispatcher,
-                    clockViewFactory,
                     resources,
                     getUserEventLogger(),
                 )
@@ -338,7 +347,10 @@ constructor(
         wallpaperColors: WallpaperColors,
         context: Context,
     ): WallpaperColorResources {
-        return ThemedWallpaperColorResources(wallpaperColors, secureSettingsRepository.get())
+        return ThemedWallpaperColorResources(
+            wallpaperColors,
+            themeOverlaySettingsRepository.get(),
+        )
     }
 
     override fun getColorPickerViewModelFactory(context: Context): ColorPickerViewModel.Factory {
@@ -351,11 +363,8 @@ constructor(
                 .also { colorPickerViewModelFactory = it }
     }
 
-    private fun getColorCustomizationManager(context: Context): ColorCustomizationManager {
-        return colorCustomizationManager
-            ?: ColorCustomizationManager.getInstance(context, OverlayManagerCompat(context)).also {
-                colorCustomizationManager = it
-            }
+    private fun getColorCustomizationManager(): ColorCustomizationManager {
+        return colorCustomizationManager.get()
     }
 
     fun getDarkModeSnapshotRestorer(context: Context): DarkModeSnapshotRestorer {
@@ -442,8 +451,7 @@ constructor(
     }
 
     override fun isCurrentSelectedColorPreset(context: Context): Boolean {
-        val colorManager =
-            ColorCustomizationManager.getInstance(context, OverlayManagerCompat(context))
+        val colorManager = getColorCustomizationManager()
         return COLOR_SOURCE_PRESET == colorManager.currentColorSource
     }
 
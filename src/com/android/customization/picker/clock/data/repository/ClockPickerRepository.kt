@@ -20,6 +20,7 @@ import androidx.annotation.ColorInt
 import androidx.annotation.IntRange
 import com.android.customization.picker.clock.shared.ClockSize
 import com.android.customization.picker.clock.shared.model.ClockMetadataModel
+import com.android.customization.picker.clock.shared.model.ClockSnapshotModel
 import com.android.systemui.plugins.clocks.ClockFontAxisSetting
 import kotlinx.coroutines.flow.Flow
 
@@ -52,4 +53,12 @@ interface ClockPickerRepository {
     suspend fun setClockSize(size: ClockSize)
 
     suspend fun setClockFontAxes(axisSettings: List<ClockFontAxisSetting>)
+
+    /**
+     * Applies every non-null field of [clockSettings] at once. The clock id, color and font axes
+     * are merged into a single clock settings write, so the clock is only re-rendered once.
+     *
+     * The color fields are applied if and only if [ClockSnapshotModel.colorToneProgress] is set.
+     */
+    suspend fun applyClockSettings(clockSettings: ClockSnapshotModel)
 }
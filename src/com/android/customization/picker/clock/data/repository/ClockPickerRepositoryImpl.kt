@@ -17,24 +17,27 @@
 package com.android.customization.picker.clock.data.repository
 
 import android.graphics.drawable.Drawable
+import android.os.Looper
+import android.os.MessageQueue
 import android.provider.Settings
 import androidx.annotation.ColorInt
 import androidx.annotation.IntRange
+import com.android.customization.picker.clock.shared.ClockPickerTrace
 import com.android.customization.picker.clock.shared.ClockSize
 import com.android.customization.picker.clock.shared.model.ClockMetadataModel
+import com.android.customization.picker.clock.shared.model.ClockSnapshotModel
 import com.android.systemui.plugins.clocks.ClockFontAxis
 import com.android.systemui.plugins.clocks.ClockFontAxisSetting
 import com.android.systemui.plugins.clocks.ClockMetadata
 import com.android.systemui.shared.clocks.ClockRegistry
 import com.android.systemui.shared.settings.data.repository.SecureSettingsRepository
 import com.android.wallpaper.picker.di.modules.MainDispatcher
+import java.util.concurrent.atomic.AtomicBoolean
 import javax.inject.Inject
 import javax.inject.Singleton
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.channels.awaitClose
-import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.SharedFlow
 import kotlinx.coroutines.flow.SharingStarted
@@ -42,7 +45,6 @@ import kotlinx.coroutines.flow.callbackFlow
 import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.flow.map
-import kotlinx.coroutines.flow.mapLatest
 import kotlinx.coroutines.flow.mapNotNull
 import kotlinx.coroutines.flow.shareIn
 import org.json.JSONObject
@@ -58,10 +60,16 @@ constructor(
     @MainDispatcher mainDispatcher: CoroutineDispatcher,
 ) : ClockPickerRepository {
 
-    @OptIn(ExperimentalCoroutinesApi::class)
+    /**
+     * [allClocks] and [selectedClock] are shared so that one registry listener serves all of their
+     * collectors. The listener is removed once the last collector is gone, and the replayed value
+     * is dropped with it, so that a later collector never starts from a stale clock.
+     */
+    private val clockChangeSharing = SharingStarted.WhileSubscribed(replayExpirationMillis = 0)
+
     override val allClocks: Flow<List<ClockMetadataModel>> =
         callbackFlow {
-                fun send() {
+                fun sendAllClocks() {
                     val activeClockId = registry.activeClockId
                     val allClocks =
                         registry.getClocks().mapNotNull {
@@ -82,24 +90,48 @@ constructor(
                     trySend(allClocks)
                 }
 
+                fun send() {
+                    ClockPickerTrace.traceSection("ClockPickerRepository#allClocks") {
+                        sendAllClocks()
+                    }
+                    ClockPickerTrace.count(ClockPickerTrace.COUNTER_ALL_CLOCKS_EMITTED)
+                }
+
+                // Loading the clock plugins causes a burst of onAvailableClocksChanged() calls.
+                // Rather than waiting a fixed time, send the list once the main thread has no more
+                // pending work, which coalesces the calls delivered in one go. This is not a
+                // "registry loaded" signal: plugins load off the main thread, so the main thread
+                // can go idle between two plugins and the list is then sent once per plugin.
+                val mainQueue = Looper.getMainLooper().queue
+                val isSendPending = AtomicBoolean(false)
+                val sendWhenIdle =
+                    MessageQueue.IdleHandler {
+                        isSendPending.set(false)
+                        send()
+                        /* keep= */ false
+                    }
                 val listener =
                     object : ClockRegistry.ClockChangeListener {
                         override fun onAvailableClocksChanged() {
-                            send()
+                            if (isSendPending.compareAndSet(false, true)) {
+                                mainQueue.addIdleHandler(sendWhenIdle)
+                            } else {
+                                ClockPickerTrace.count(
+                                    ClockPickerTrace.COUNTER_ALL_CLOCKS_DEBOUNCED
+                                )
+                            }
                         }
                     }
                 registry.registerClockChangeListener(listener)
                 send()
-                awaitClose { registry.unregisterClockChangeListener(listener) }
+                awaitClose {
+                    registry.unregisterClockChangeListener(listener)
+                    mainQueue.removeIdleHandler(sendWhenIdle)
+                }
             }
             .flowOn(mainDispatcher)
-            .mapLatest { allClocks ->
-                // Loading list of clock plugins can cause many consecutive calls of
-                // onAvailableClocksChanged(). We only care about the final fully-initiated clock
-                // list. Delay to avoid unnecessary too many emits.
-                delay(100)
-                allClocks
-            }
+            .distinctUntilChanged()
+            .shareIn(scope = mainScope, started = clockChangeSharing, replay = 1)
 
     /** The currently-selected clock. This also emits the clock color information. */
     override val selectedClock: Flow<ClockMetadataModel> =
@@ -145,13 +177,10 @@ constructor(
             }
             .flowOn(mainDispatcher)
             .mapNotNull { it }
+            .shareIn(scope = mainScope, started = clockChangeSharing, replay = 1)
 
     override suspend fun setSelectedClock(clockId: String) {
-        registry.mutateSetting { oldSettings ->
-            val newSettings = oldSettings.copy(clockId = clockId)
-            newSettings.metadata = oldSettings.metadata
-            newSettings
-        }
+        applyClockSettings(ClockSnapshotModel(clockId = clockId))
     }
 
     override suspend fun setClockColor(
@@ -159,14 +188,13 @@ constructor(
         @IntRange(from = 0, to = 100) colorToneProgress: Int,
         @ColorInt seedColor: Int?,
     ) {
-        registry.mutateSetting { oldSettings ->
-            val newSettings = oldSettings.copy(seedColor = seedColor)
-            newSettings.metadata =
-                oldSettings.metadata
-                    .put(KEY_METADATA_SELECTED_COLOR_ID, selectedColorId)
-                    .put(KEY_METADATA_COLOR_TONE_PROGRESS, colorToneProgress)
-            newSettings
-        }
+        applyClockSettings(
+            ClockSnapshotModel(
+                selectedColorId = selectedColorId,
+                colorToneProgress = colorToneProgress,
+                seedColor = seedColor,
+            )
+        )
     }
 
     override val selectedClockSize: SharedFlow<ClockSize> =
@@ -188,9 +216,41 @@ constructor(
     }
 
     override suspend fun setClockFontAxes(axisSettings: List<ClockFontAxisSetting>) {
+        applyClockSettings(ClockSnapshotModel(axisSettings = axisSettings))
+    }
+
+    override suspend fun applyClockSettings(clockSettings: ClockSnapshotModel) {
+        clockSettings.clockSize?.let { setClockSize(it) }
+        val colorToneProgress = clockSettings.colorToneProgress
+        if (
+            clockSettings.clockId == null &&
+                colorToneProgress == null &&
+                clockSettings.axisSettings == null
+        ) {
+            return
+        }
+        // Each mutateSetting call serializes and persists the whole settings JSON and notifies
+        // every clock listener, so merge all the edits into one.
         registry.mutateSetting { oldSettings ->
-            val newSettings = oldSettings.copy(axes = axisSettings)
-            newSettings.metadata = oldSettings.metadata
+            val newSettings =
+                oldSettings.copy(
+                    clockId = clockSettings.clockId ?: oldSettings.clockId,
+                    seedColor =
+                        if (colorToneProgress != null) {
+                            clockSettings.seedColor
+                        } else {
+                            oldSettings.seedColor
+                        },
+                    axes = clockSettings.axisSettings ?: oldSettings.axes,
+                )
+            newSettings.metadata =
+                if (colorToneProgress != null) {
+                    oldSettings.metadata
+                        .put(KEY_METADATA_SELECTED_COLOR_ID, clockSettings.selectedColorId)
+                        .put(KEY_METADATA_COLOR_TONE_PROGRESS, colorToneProgress)
+                } else {
+                    oldSettings.metadata
+                }
             newSettings
         }
     }
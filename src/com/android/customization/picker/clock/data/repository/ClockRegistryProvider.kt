@@ -19,6 +19,7 @@ import android.app.NotificationManager
 import android.content.ComponentName
 import android.content.Context
 import android.view.LayoutInflater
+import com.android.customization.picker.clock.shared.ClockPickerTrace
 import com.android.systemui.Flags
 import com.android.systemui.plugins.Plugin
 import com.android.systemui.plugins.PluginManager
@@ -45,7 +46,23 @@ class ClockRegistryProvider(
     private val backgroundDispatcher: CoroutineDispatcher,
 ) {
     private val clockRegistry: ClockRegistry by lazy {
-        ClockRegistry(
+        ClockPickerTrace.traceSection("ClockRegistryProvider#createClockRegistry") {
+            createClockRegistry()
+        }
+    }
+
+    init {
+        // Listeners in ClockRegistry get cleaned up when app ended. Registering them connects the
+        // plugin manager, which discovers and loads the clock plugins.
+        ClockPickerTrace.traceSection("ClockRegistryProvider#registerListeners") {
+            clockRegistry.registerListeners()
+        }
+    }
+
+    fun get() = clockRegistry
+
+    private fun createClockRegistry(): ClockRegistry {
+        return ClockRegistry(
             context,
             createPluginManager(context),
             coroutineScope,
@@ -64,13 +81,6 @@ class ClockRegistryProvider(
         )
     }
 
-    init {
-        // Listeners in ClockRegistry get cleaned up when app ended
-        clockRegistry.registerListeners()
-    }
-
-    fun get() = clockRegistry
-
     private fun createPluginManager(context: Context): PluginManager {
         val privilegedPlugins = listOf<String>()
         val isDebugDevice = true
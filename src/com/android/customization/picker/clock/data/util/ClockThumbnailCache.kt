@@ -0,0 +1,181 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.picker.clock.data.util
+
+import android.content.Context
+import android.content.pm.PackageManager
+import android.content.res.Configuration
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.Canvas
+import android.graphics.Rect
+import android.graphics.drawable.BitmapDrawable
+import android.graphics.drawable.Drawable
+import android.os.Build
+import android.util.AtomicFile
+import android.util.Log
+import android.util.LruCache
+import androidx.annotation.Px
+import com.android.wallpaper.picker.di.modules.BackgroundDispatcher
+import dagger.hilt.android.qualifiers.ApplicationContext
+import java.io.File
+import java.io.IOException
+import javax.inject.Inject
+import javax.inject.Singleton
+import kotlin.math.roundToInt
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.withContext
+
+/**
+ * Rasterizes clock thumbnails to bitmaps of the exact size they are shown at, so that binding a
+ * clock style option only sets a bitmap instead of drawing the clock plugin's drawable on the main
+ * thread.
+ *
+ * Bitmaps are kept in memory and on disk, keyed by the clock id, the clock's version and the theme
+ * seed color. Clock plugins ship with the system image or with this app, so the build fingerprint
+ * and the app's last update time stand in for the plugin version.
+ */
+@Singleton
+class ClockThumbnailCache
+@Inject
+constructor(
+    @ApplicationContext private val context: Context,
+    @BackgroundDispatcher private val bgDispatcher: CoroutineDispatcher,
+) {
+
+    private val memoryCache =
+        object : LruCache<String, Bitmap>(MEMORY_CACHE_SIZE_BYTES) {
+            override fun sizeOf(key: String, value: Bitmap): Int = value.allocationByteCount
+        }
+
+    private val cacheDir: File by lazy { File(context.cacheDir, DIR_NAME) }
+
+    private val appVersion: Long by lazy {
+        try {
+            context.packageManager.getPackageInfo(context.packageName, 0).lastUpdateTime
+        } catch (e: PackageManager.NameNotFoundException) {
+            Log.w(TAG, "Failed to read the app version", e)
+            0L
+        }
+    }
+
+    /**
+     * Returns [thumbnail] rasterized to a [sizePx] square bitmap, drawing it only if neither the
+     * memory nor the disk cache has it. A thumbnail that is not square is scaled to fit and
+     * centered, keeping its aspect ratio.
+     */
+    suspend fun get(clockId: String, thumbnail: Drawable, @Px sizePx: Int): Drawable =
+        withContext(bgDispatcher) {
+            val key = cacheKey(clockId, thumbnail, sizePx)
+            val bitmap =
+                memoryCache.get(key)
+                    ?: loadOrRasterize(key, thumbnail, sizePx).also { memoryCache.put(key, it) }
+            BitmapDrawable(context.resources, bitmap)
+        }
+
+    private fun loadOrRasterize(key: String, thumbnail: Drawable, @Px sizePx: Int): Bitmap {
+        return readFromDisk(key) ?: rasterize(thumbnail, sizePx).also { writeToDisk(key, it) }
+    }
+
+    private fun cacheKey(clockId: String, thumbnail: Drawable, @Px sizePx: Int): String {
+        // The theme seed is what the plugin thumbnails tint themselves with.
+        val themeSeed = context.getColor(android.R.color.system_accent1_500)
+        // Thumbnails may resolve day and night resources differently for the same seed.
+        val nightMode = context.resources.configuration.uiMode and Configuration.UI_MODE_NIGHT_MASK
+        var hash = HASH_SEED
+        // The file name keeps only the id's letters and digits, so ids can collide there.
+        hash = hash * 31 + clockId.hashCode()
+        hash = hash * 31 + Build.FINGERPRINT.hashCode()
+        hash = hash * 31 + appVersion
+        hash = hash * 31 + nightMode
+        hash = hash * 31 + thumbnail.intrinsicWidth
+        hash = hash * 31 + thumbnail.intrinsicHeight
+        val fileSafeClockId = clockId.filter { it.isLetterOrDigit() }
+        return "${fileSafeClockId}_${sizePx}_${Integer.toHexString(themeSeed)}_" +
+            java.lang.Long.toHexString(hash)
+    }
+
+    private fun rasterize(thumbnail: Drawable, @Px sizePx: Int): Bitmap {
+        // Draw a copy so that the bounds of a drawable shared with the plugin are left untouched.
+        val drawable =
+            thumbnail.constantState?.newDrawable(context.resources)?.mutate() ?: thumbnail
+        val bitmap = Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888)
+        drawable.bounds = fitCenter(drawable.intrinsicWidth, drawable.intrinsicHeight, sizePx)
+        drawable.draw(Canvas(bitmap))
+        return bitmap
+    }
+
+    /**
+     * Returns the bounds that fit a [width] by [height] drawable, centered, inside a [sizePx]
+     * square. A drawable without an intrinsic size, e.g. a color, fills the square.
+     */
+    private fun fitCenter(width: Int, height: Int, @Px sizePx: Int): Rect {
+        if (width <= 0 || height <= 0) {
+            return Rect(0, 0, sizePx, sizePx)
+        }
+        val scale = minOf(sizePx.toFloat() / width, sizePx.toFloat() / height)
+        val scaledWidth = (width * scale).roundToInt()
+        val scaledHeight = (height * scale).roundToInt()
+        val left = (sizePx - scaledWidth) / 2
+        val top = (sizePx - scaledHeight) / 2
+        return Rect(left, top, left + scaledWidth, top + scaledHeight)
+    }
+
+    private fun readFromDisk(key: String): Bitmap? {
+        val file = File(cacheDir, "$key.png")
+        if (!file.exists()) {
+            return null
+        }
+        return try {
+            AtomicFile(file).openRead().use { BitmapFactory.decodeStream(it) }
+        } catch (e: IOException) {
+            Log.w(TAG, "Failed to read clock thumbnail $key", e)
+            null
+        }
+    }
+
+    private fun writeToDisk(key: String, bitmap: Bitmap) {
+        if (!cacheDir.isDirectory && !cacheDir.mkdirs()) {
+            Log.w(TAG, "Failed to create $cacheDir")
+            return
+        }
+        val file = AtomicFile(File(cacheDir, "$key.png"))
+        val stream =
+            try {
+                file.startWrite()
+            } catch (e: IOException) {
+                Log.w(TAG, "Failed to open clock thumbnail $key for writing", e)
+                return
+            }
+        try {
+            bitmap.compress(Bitmap.CompressFormat.PNG, /* quality= */ 100, stream)
+            file.finishWrite(stream)
+        } catch (e: IOException) {
+            Log.w(TAG, "Failed to write clock thumbnail $key", e)
+            file.failWrite(stream)
+        }
+        trimDiskCache()
+    }
+
+    /** Deletes the least recently written thumbnails, e.g. those of an older theme seed. */
+    private fun trimDiskCache() {
+        val files = cacheDir.listFiles() ?: return
+        if (files.size <= MAX_DISK_ENTRIES) {
+            return
+        }
+        files.sortedBy { it.lastModified() }.take(files.size - MAX_DISK_ENTRIES).forEach {
+            it.delete()
+        }
+    }
+
+    companion object {
+        private const val TAG = "ClockThumbnailCache"
+        private const val DIR_NAME = "clock_thumbnails"
+        private const val HASH_SEED = 17L
+        private const val MEMORY_CACHE_SIZE_BYTES = 4 * 1024 * 1024
+        private const val MAX_DISK_ENTRIES = 64
+    }
+}
@@ -117,16 +117,7 @@ constructor(
         // so it needs to finish last.
         storeCurrentClockOption(clockSnapshotModel)
 
-        clockSnapshotModel.clockSize?.let { repository.setClockSize(it) }
-        clockSnapshotModel.colorToneProgress?.let {
-            repository.setClockColor(
-                selectedColorId = clockSnapshotModel.selectedColorId,
-                colorToneProgress = clockSnapshotModel.colorToneProgress,
-                seedColor = clockSnapshotModel.seedColor,
-            )
-        }
-        clockSnapshotModel.clockId?.let { repository.setSelectedClock(it) }
-        clockSnapshotModel.axisSettings?.let { repository.setClockFontAxes(it) }
+        repository.applyClockSettings(clockSnapshotModel)
     }
 
     private suspend fun storeCurrentClockOption(clockSnapshotModel: ClockSnapshotModel) {
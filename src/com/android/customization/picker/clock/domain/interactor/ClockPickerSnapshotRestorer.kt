@@ -88,16 +88,7 @@ constructor(private val repository: ClockPickerRepository) : SnapshotRestorer {
                 )
             }
 
-            optionToRestore.clockSize?.let { repository.setClockSize(it) }
-            optionToRestore.colorToneProgress?.let {
-                repository.setClockColor(
-                    selectedColorId = optionToRestore.selectedColorId,
-                    colorToneProgress = optionToRestore.colorToneProgress,
-                    seedColor = optionToRestore.seedColor,
-                )
-            }
-            optionToRestore.clockId?.let { repository.setSelectedClock(it) }
-            optionToRestore.axisSettings?.let { repository.setClockFontAxes(it) }
+            repository.applyClockSettings(optionToRestore)
         }
     }
 
@@ -0,0 +1,122 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.picker.clock.shared
+
+import android.os.SystemClock
+import android.os.Trace
+import android.util.Log
+import java.io.PrintWriter
+import java.io.StringWriter
+
+/**
+ * Trace sections and counters of the clock picker pipeline, from plugin discovery to the first
+ * carousel frame.
+ *
+ * Every section is emitted to [Trace] for system traces, and also kept in an in-app ring buffer
+ * together with the counters and per-clock creation times, so that they can be read on devices
+ * without a trace. [dump] prints them; with `adb shell setprop log.tag.ClockPickerTrace DEBUG`,
+ * [logDump] writes the same report to logcat when the clock picker is torn down.
+ */
+object ClockPickerTrace {
+
+    private const val TAG = "ClockPickerTrace"
+    private const val RING_BUFFER_SIZE = 64
+
+    const val COUNTER_ALL_CLOCKS_EMITTED = "ClockPicker.allClocks.emitted"
+    const val COUNTER_ALL_CLOCKS_DEBOUNCED = "ClockPicker.allClocks.debounced"
+
+    private class Section(val name: String, val startMillis: Long, val durationNanos: Long)
+
+    private val lock = Any()
+    private val sections = arrayOfNulls<Section>(RING_BUFFER_SIZE)
+    private var nextSection = 0
+    private var sectionCount = 0L
+    private val counters = LinkedHashMap<String, Long>()
+    private val clockCreationNanos = LinkedHashMap<String, Long>()
+
+    /** Runs [block] inside a trace section named [name] and records its duration. */
+    inline fun <T> traceSection(name: String, block: () -> T): T {
+        Trace.beginSection(name)
+        val startNanos = SystemClock.elapsedRealtimeNanos()
+        try {
+            return block()
+        } finally {
+            recordSection(name, startNanos)
+            Trace.endSection()
+        }
+    }
+
+    /**
+     * Records a section that started at [startNanos], from [SystemClock.elapsedRealtimeNanos], and
+     * ends now. Use it for spans that cross frames, such as the time to the first carousel frame.
+     */
+    fun recordSection(name: String, startNanos: Long) {
+        val durationNanos = SystemClock.elapsedRealtimeNanos() - startNanos
+        val section = Section(name, startNanos / 1_000_000, durationNanos)
+        synchronized(lock) {
+            sections[nextSection] = section
+            nextSection = (nextSection + 1) % RING_BUFFER_SIZE
+            sectionCount++
+        }
+    }
+
+    /** Adds [delta] to the counter named [name] and publishes its new value to [Trace]. */
+    fun count(name: String, delta: Long = 1) {
+        val value =
+            synchronized(lock) {
+                val newValue = counters.getOrDefault(name, 0L) + delta
+                counters[name] = newValue
+                newValue
+            }
+        Trace.setCounter(name, value)
+    }
+
+    /** Records how long creating the controller of [clockId] took. */
+    fun recordClockCreated(clockId: String, durationNanos: Long) {
+        synchronized(lock) {
+            // Re-insert so that the report lists clocks in the order they were last created.
+            clockCreationNanos.remove(clockId)
+            clockCreationNanos[clockId] = durationNanos
+        }
+    }
+
+    /** Prints the recorded sections, counters and clock creation times to [writer]. */
+    fun dump(writer: PrintWriter) {
+        synchronized(lock) {
+            writer.println("$TAG:")
+            writer.println("  Counters:")
+            counters.forEach { (name, value) -> writer.println("    $name=$value") }
+            writer.println("  Clock controller creation (ms):")
+            clockCreationNanos.forEach { (clockId, nanos) ->
+                writer.println("    $clockId: ${formatMillis(nanos)}")
+            }
+            val size = minOf(sectionCount, RING_BUFFER_SIZE.toLong()).toInt()
+            writer.println("  Last $size of $sectionCount sections:")
+            for (i in 0 until size) {
+                val section =
+                    sections[(nextSection - size + i + RING_BUFFER_SIZE) % RING_BUFFER_SIZE]
+                        ?: continue
+                writer.println(
+                    "    @${section.startMillis} ${section.name}: " +
+                        formatMillis(section.durationNanos) +
+                        " ms"
+                )
+            }
+        }
+    }
+
+    /** Writes [dump] to logcat if debug logging is enabled for [TAG]. */
+    fun logDump() {
+        if (!Log.isLoggable(TAG, Log.DEBUG)) {
+            return
+        }
+        val stringWriter = StringWriter()
+        PrintWriter(stringWriter).use { dump(it) }
+        stringWriter.toString().lines().forEach { Log.d(TAG, it) }
+    }
+
+    private fun formatMillis(nanos: Long): String = String.format("%.2f", nanos / 1_000_000.0)
+}
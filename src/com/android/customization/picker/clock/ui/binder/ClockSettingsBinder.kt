@@ -48,7 +48,9 @@ import com.android.systemui.shared.Flags
 import com.android.themepicker.R
 import com.android.wallpaper.picker.common.ui.view.ItemSpacing
 import com.android.wallpaper.picker.option.ui.binder.OptionItemBinder
+import kotlinx.coroutines.android.awaitFrame
 import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.conflate
 import kotlinx.coroutines.flow.mapNotNull
 import kotlinx.coroutines.launch
 
@@ -119,10 +121,13 @@ object ClockSettingsBinder {
         lifecycleOwner.lifecycleScope.launch {
             lifecycleOwner.repeatOnLifecycle(Lifecycle.State.STARTED) {
                 launch {
-                    viewModel.seedColor.collect { seedColor ->
+                    // The color tone slider emits faster than the screen refreshes. Re-theme the
+                    // clock at most once per frame, with the latest color.
+                    viewModel.seedColor.conflate().collect { seedColor ->
                         viewModel.selectedClockId.value?.let { selectedClockId ->
                             clockViewFactory.updateColor(selectedClockId, seedColor)
                         }
+                        awaitFrame()
                     }
                 }
 
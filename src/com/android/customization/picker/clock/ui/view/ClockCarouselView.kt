@@ -18,6 +18,9 @@ package com.android.customization.picker.clock.ui.view
 import android.content.Context
 import android.content.res.ColorStateList
 import android.content.res.Resources
+import android.os.Looper
+import android.os.MessageQueue
+import android.os.SystemClock
 import android.util.AttributeSet
 import android.util.TypedValue
 import android.view.LayoutInflater
@@ -30,6 +33,7 @@ import androidx.constraintlayout.widget.ConstraintSet
 import androidx.core.view.doOnPreDraw
 import androidx.core.view.get
 import androidx.core.view.isNotEmpty
+import com.android.customization.picker.clock.shared.ClockPickerTrace
 import com.android.customization.picker.clock.shared.ClockSize
 import com.android.customization.picker.clock.ui.viewmodel.ClockCarouselItemViewModel
 import com.android.systemui.plugins.clocks.ClockController
@@ -53,6 +57,23 @@ class ClockCarouselView(context: Context, attrs: AttributeSet) : FrameLayout(con
     private var toCenterCardView: View? = null
     private var offCenterCardView: View? = null
 
+    /** Clock ids to create and measure while the main thread is idle, nearest first. */
+    private val prewarmQueue = ArrayDeque<String>()
+    private var isPrewarmScheduled = false
+    private var isPrewarmQueueStale = false
+    private var hasTracedFirstFrame = false
+    private val prewarmIdleHandler =
+        MessageQueue.IdleHandler {
+            if (isPrewarmQueueStale) {
+                isPrewarmQueueStale = false
+                fillPrewarmQueue()
+            }
+            prewarmQueue.removeFirstOrNull()?.let { prewarmClockView(it) }
+            // Prewarm one clock per idle pass, so that a swipe starting meanwhile is not delayed.
+            isPrewarmScheduled = prewarmQueue.isNotEmpty()
+            isPrewarmScheduled
+        }
+
     init {
         val clockCarousel = LayoutInflater.from(context).inflate(R.layout.clock_carousel, this)
         carousel = clockCarousel.requireViewById(R.id.carousel)
@@ -136,6 +157,13 @@ class ClockCarouselView(context: Context, attrs: AttributeSet) : FrameLayout(con
         if (isTwoPaneAndSmallWidth) {
             overrideScreenPreviewWidth()
         }
+        if (!hasTracedFirstFrame) {
+            hasTracedFirstFrame = true
+            val startNanos = SystemClock.elapsedRealtimeNanos()
+            doOnPreDraw {
+                ClockPickerTrace.recordSection("ClockCarouselView#firstFrame", startNanos)
+            }
+        }
 
         adapter =
             ClockCarouselAdapter(
@@ -146,13 +174,15 @@ class ClockCarouselView(context: Context, attrs: AttributeSet) : FrameLayout(con
                 onClockSelected,
             )
         carousel.isInfinite = clocks.size >= MIN_CLOCKS_TO_ENABLE_INFINITE_CAROUSEL
-        carousel.setAdapter(adapter)
         val indexOfSelectedClock =
             clocks
                 .indexOfFirst { it.isSelected }
                 // If not found, default to the first clock as selected:
                 .takeIf { it != -1 } ?: 0
+        pinClocks(clockIdsAround(indexOfSelectedClock))
+        carousel.setAdapter(adapter)
         carousel.jumpToIndex(indexOfSelectedClock)
+        schedulePrewarm()
         motionLayout.setTransitionListener(
             object : MotionLayout.TransitionListener {
 
@@ -164,6 +194,10 @@ class ClockCarouselView(context: Context, attrs: AttributeSet) : FrameLayout(con
                     if (motionLayout == null) {
                         return
                     }
+                    // Both the clocks leaving and the clocks entering the item views are shown
+                    // until the transition completes.
+                    val targetIndex = carousel.currentIndex + if (endId == R.id.next) 1 else -1
+                    pinClocks(clockIdsAround(carousel.currentIndex) + clockIdsAround(targetIndex))
                     when (clockSize) {
                         ClockSize.DYNAMIC -> prepareDynamicClockView(motionLayout, endId)
                         ClockSize.SMALL -> prepareSmallClockView(motionLayout, endId)
@@ -187,6 +221,7 @@ class ClockCarouselView(context: Context, attrs: AttributeSet) : FrameLayout(con
 
                 override fun onTransitionCompleted(motionLayout: MotionLayout?, currentId: Int) {
                     setCarouselItemAnimationState(currentId == R.id.start)
+                    schedulePrewarm()
                 }
 
                 private fun prepareDynamicClockView(motionLayout: MotionLayout, endId: Int) {
@@ -319,8 +354,89 @@ class ClockCarouselView(context: Context, attrs: AttributeSet) : FrameLayout(con
         // 2. jumpToIndex() to the same position can cause the views unnecessarily populate again.
         //    We only call jumpToIndex when the index is different from the current carousel.
         if (index < carousel.count && index != carousel.currentIndex) {
+            pinClocks(clockIdsAround(index))
             carousel.jumpToIndex(index)
+            schedulePrewarm()
+        }
+    }
+
+    override fun onDetachedFromWindow() {
+        super.onDetachedFromWindow()
+        Looper.myQueue().removeIdleHandler(prewarmIdleHandler)
+        isPrewarmScheduled = false
+        prewarmQueue.clear()
+    }
+
+    /**
+     * Creates and measures the clocks just outside of the carousel's item views once the main
+     * thread is idle. The next swipe then binds a clock whose view already exists and has been
+     * measured, instead of inflating and measuring it inside the transition.
+     */
+    private fun schedulePrewarm() {
+        // The carousel updates its current index in its own transition callback, which may run
+        // after ours. Read it when the idle handler runs.
+        isPrewarmQueueStale = true
+        if (!isPrewarmScheduled) {
+            isPrewarmScheduled = true
+            Looper.myQueue().addIdleHandler(prewarmIdleHandler)
+        }
+    }
+
+    private fun fillPrewarmQueue() {
+        prewarmQueue.clear()
+        if (!::adapter.isInitialized) {
+            return
         }
+        val clockIds = clockIdsAround(carousel.currentIndex)
+        pinClocks(clockIds)
+        // The first clock is the current one, already bound to the center item view.
+        prewarmQueue.addAll(clockIds.drop(1))
+    }
+
+    /**
+     * Returns the ids of the clock at [centerIndex] and of the clocks up to [PREWARM_DISTANCE]
+     * away on each side, nearest first: the clocks the item views hold around that index plus the
+     * ones prewarmed for the next swipe.
+     */
+    private fun clockIdsAround(centerIndex: Int): Set<String> {
+        val clocks = adapter.clocks
+        val clockIds = LinkedHashSet<String>()
+        fun addClockAt(index: Int) {
+            val clockIndex = if (carousel.isInfinite) Math.floorMod(index, clocks.size) else index
+            clocks.getOrNull(clockIndex)?.let { clockIds.add(it.clockId) }
+        }
+        addClockAt(centerIndex)
+        for (distance in 1..PREWARM_DISTANCE) {
+            addClockAt(centerIndex + distance)
+            addClockAt(centerIndex - distance)
+        }
+        return clockIds
+    }
+
+    /** Keeps the controllers of [clockIds] from being evicted while the carousel shows them. */
+    private fun pinClocks(clockIds: Set<String>) {
+        (clockViewFactory as? ThemePickerClockViewFactory)?.setPinnedClockIds(clockIds)
+    }
+
+    private fun prewarmClockView(clockId: String) {
+        val controller = clockViewFactory.getController(clockId)
+        val clockView =
+            when (adapter.clockSize) {
+                ClockSize.DYNAMIC -> controller.largeClock.view
+                ClockSize.SMALL -> controller.smallClock.view
+            }
+        // A clock hosted by one of the item views is already measured and laid out.
+        if (clockView.isAttachedToWindow) {
+            return
+        }
+        val hostView = motionLayout.findViewById<View>(R.id.clock_host_view_2) ?: return
+        if (hostView.width == 0 || hostView.height == 0) {
+            return
+        }
+        clockView.measure(
+            MeasureSpec.makeMeasureSpec(hostView.width, MeasureSpec.AT_MOST),
+            MeasureSpec.makeMeasureSpec(hostView.height, MeasureSpec.AT_MOST),
+        )
     }
 
     fun setCarouselCardColor(color: Int) {
@@ -422,16 +538,21 @@ class ClockCarouselView(context: Context, attrs: AttributeSet) : FrameLayout(con
             val clockId = clocks[index].clockId
 
             // Add the clock view to the clock host view
-            clockHostView.removeAllViews()
             val clockView =
                 when (clockSize) {
                     ClockSize.DYNAMIC -> clockViewFactory.getLargeView(clockId)
                     ClockSize.SMALL -> clockViewFactory.getSmallView(clockId)
                 }
-            // The clock view might still be attached to an existing parent. Detach before adding to
-            // another parent.
-            (clockView.parent as? ViewGroup)?.removeView(clockView)
-            clockHostView.addView(clockView)
+            // The carousel populates its items again after every transition, often with the clock
+            // they already host. Only move the view when it changes host, since re-attaching it
+            // forces a full measure and layout of the clock.
+            if (clockView.parent !== clockHostView) {
+                clockHostView.removeAllViews()
+                // The clock view might still be attached to an existing parent. Detach before
+                // adding to another parent.
+                (clockView.parent as? ViewGroup)?.removeView(clockView)
+                clockHostView.addView(clockView)
+            }
 
             val isMiddleView = isMiddleView(viewRoot.id)
 
@@ -517,6 +638,9 @@ class ClockCarouselView(context: Context, attrs: AttributeSet) : FrameLayout(con
         // The carousel needs to have at least 5 different clock faces to be infinite
         const val MIN_CLOCKS_TO_ENABLE_INFINITE_CAROUSEL = 5
         const val TRANSITION_DURATION = 250
+        // The item views hold the current clock and two on each side. Prewarm one more on each
+        // side, the clocks a swipe binds next.
+        private const val PREWARM_DISTANCE = 3
 
         val itemViewIds =
             listOf(
@@ -20,12 +20,18 @@ import android.app.WallpaperColors
 import android.app.WallpaperManager
 import android.content.Context
 import android.graphics.Rect
+import android.os.Handler
+import android.os.Looper
+import android.os.SystemClock
 import android.view.View
+import android.view.ViewGroup
 import android.widget.FrameLayout
 import androidx.annotation.ColorInt
 import androidx.lifecycle.LifecycleOwner
+import com.android.customization.picker.clock.shared.ClockPickerTrace
 import com.android.internal.policy.SystemBarUtils
 import com.android.systemui.plugins.clocks.ClockController
+import com.android.systemui.plugins.clocks.ClockFaceController
 import com.android.systemui.plugins.clocks.ClockFontAxisSetting
 import com.android.systemui.plugins.clocks.WeatherData
 import com.android.systemui.shared.Flags
@@ -52,12 +58,126 @@ constructor(
     private val screenSize =
         ScreenSizeCalculator.getInstance().getScreenSize(activity.windowManager.defaultDisplay)
     private val timeTickListeners: ConcurrentHashMap<Int, TimeTicker> = ConcurrentHashMap()
-    private val clockControllers: ConcurrentHashMap<String, ClockController> = ConcurrentHashMap()
+    private val mainHandler = Handler(Looper.getMainLooper())
+    /**
+     * Guards [clockControllers], [pinnedClockIds], [smallClockFrames] and [staleClockFaces].
+     * Controllers may also be requested from background threads, while the views and time ticks
+     * are handled on the main thread.
+     */
+    private val lock = Any()
+    /**
+     * Live clock controllers in least recently used order. Only the active clock and the clocks the
+     * carousel last asked for are kept, so that memory and the per-tick work stay constant however
+     * many clock plugins are installed.
+     */
+    private val clockControllers =
+        LinkedHashMap<String, ClockController>(
+            MAX_LIVE_CLOCK_CONTROLLERS,
+            /* loadFactor= */ 0.75f,
+            /* accessOrder= */ true,
+        )
+    /** Clocks the carousel is showing or about to show, never evicted while pinned. */
+    private var pinnedClockIds: Set<String> = emptySet()
     private val smallClockFrames: HashMap<String, FrameLayout> = HashMap()
 
+    /** Clock faces that skipped a time tick while off screen, ticked when shown again. */
+    private val staleClockFaces: MutableSet<ClockFaceController> = HashSet()
+    private val visibleRect = Rect()
+
+    /** The seed color last sent to all clocks, applied again to controllers created afterwards. */
+    @Volatile private var allClocksSeedColor: Int? = null
+    @Volatile private var hasAllClocksSeedColor = false
+
     override fun getController(clockId: String): ClockController {
-        return clockControllers[clockId]
-            ?: initClockController(clockId).also { clockControllers[clockId] = it }
+        synchronized(lock) { clockControllers[clockId] }?.let {
+            return it
+        }
+        val controller = initClockController(clockId)
+        val evictedControllers =
+            synchronized(lock) {
+                clockControllers[clockId]?.let {
+                    return it
+                }
+                clockControllers[clockId] = controller
+                evictLeastRecentlyUsedControllersLocked()
+            }
+        if (evictedControllers.isNotEmpty()) {
+            runOnMainThread { evictedControllers.forEach { detachViews(it) } }
+        }
+        return controller
+    }
+
+    /**
+     * Keeps the controllers of [clockIds] live, on top of the active clock's, until the next call.
+     * The carousel pins the clocks its item views hold and the ones it prewarms, so that a clock it
+     * shows can never be evicted and detached from under it.
+     */
+    fun setPinnedClockIds(clockIds: Set<String>) {
+        synchronized(lock) { pinnedClockIds = clockIds }
+    }
+
+    /**
+     * Returns the live controller of [clockId], or null, without creating one. Unlike
+     * [getController], this does not count as a use of the clock in the least recently used order.
+     */
+    private fun getLiveController(clockId: String): ClockController? {
+        return synchronized(lock) {
+            clockControllers.entries.firstOrNull { it.key == clockId }?.value
+        }
+    }
+
+    /** Returns a snapshot of the live controllers, safe to iterate while others are created. */
+    private fun liveControllers(): List<ClockController> {
+        return synchronized(lock) { clockControllers.values.toList() }
+    }
+
+    /**
+     * Drops the least recently used controllers, except the active and pinned clocks', until at
+     * most [MAX_LIVE_CLOCK_CONTROLLERS] remain or only those are left. A dropped clock gets a new
+     * controller the next time it is asked for. Must be called with [lock] held.
+     *
+     * @return the dropped controllers, whose views still have to be detached on the main thread
+     */
+    private fun evictLeastRecentlyUsedControllersLocked(): List<EvictedController> {
+        val activeClockId = registry.activeClockId
+        val evictedControllers = mutableListOf<EvictedController>()
+        val iterator = clockControllers.entries.iterator()
+        while (clockControllers.size > MAX_LIVE_CLOCK_CONTROLLERS && iterator.hasNext()) {
+            val (clockId, controller) = iterator.next()
+            if (clockId != activeClockId && clockId !in pinnedClockIds) {
+                iterator.remove()
+                staleClockFaces.remove(controller.largeClock)
+                staleClockFaces.remove(controller.smallClock)
+                evictedControllers.add(
+                    EvictedController(controller, smallClockFrames.remove(clockId))
+                )
+            }
+        }
+        return evictedControllers
+    }
+
+    /**
+     * Whether [controller] is still live. Unlike a lookup, this does not count as a use of the
+     * clock in the least recently used order. Must be called with [lock] held.
+     */
+    private fun isLiveLocked(controller: ClockController): Boolean {
+        return clockControllers.containsValue(controller)
+    }
+
+    /** Detaches an evicted controller's views, so that the carousel cannot keep showing them. */
+    private fun detachViews(evicted: EvictedController) {
+        evicted.smallClockFrame?.removeAllViews()
+        listOf(evicted.controller.largeClock.view, evicted.controller.smallClock.view).forEach {
+            (it.parent as? ViewGroup)?.removeView(it)
+        }
+    }
+
+    private fun runOnMainThread(block: () -> Unit) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            block()
+        } else {
+            mainHandler.post(block)
+        }
     }
 
     /**
@@ -68,6 +188,7 @@ constructor(
         assert(!Flags.newCustomizationPickerUi())
         return getController(clockId).largeClock.let {
             it.animations.onPickerCarouselSwiping(1F)
+            catchUpTimeTick(it)
             it.view
         }
     }
@@ -78,17 +199,26 @@ constructor(
      */
     override fun getSmallView(clockId: String): View {
         assert(!Flags.newCustomizationPickerUi())
+        val controller = getController(clockId)
         val smallClockFrame =
-            smallClockFrames[clockId]?.apply {
-                (layoutParams as FrameLayout.LayoutParams).topMargin = getSmallClockTopMargin()
-                (layoutParams as FrameLayout.LayoutParams).marginStart = getSmallClockStartPadding()
-            }
+            synchronized(lock) { smallClockFrames[clockId] }
+                ?.apply {
+                    (layoutParams as FrameLayout.LayoutParams).topMargin = getSmallClockTopMargin()
+                    (layoutParams as FrameLayout.LayoutParams).marginStart =
+                        getSmallClockStartPadding()
+                }
                 ?: createSmallClockFrame().also {
-                    it.addView(getController(clockId).smallClock.view)
-                    smallClockFrames[clockId] = it
+                    it.addView(controller.smallClock.view)
+                    synchronized(lock) {
+                        // Only keep the frame if the controller was not evicted in the meantime.
+                        if (isLiveLocked(controller)) {
+                            smallClockFrames[clockId] = it
+                        }
+                    }
                 }
         smallClockFrame.translationX = 0F
         smallClockFrame.translationY = 0F
+        catchUpTimeTick(controller.smallClock)
         return smallClockFrame
     }
 
@@ -123,7 +253,9 @@ constructor(
             )
 
     override fun updateColorForAllClocks(@ColorInt seedColor: Int?) {
-        clockControllers.values.forEach {
+        allClocksSeedColor = seedColor
+        hasAllClocksSeedColor = true
+        liveControllers().forEach {
             it.largeClock.run { events.onThemeChanged(theme.copy(seedColor = seedColor)) }
             it.smallClock.run { events.onThemeChanged(theme.copy(seedColor = seedColor)) }
         }
@@ -142,7 +274,7 @@ constructor(
 
     override fun updateRegionDarkness() {
         val isRegionDark = isLockscreenWallpaperDark()
-        clockControllers.values.forEach {
+        liveControllers().forEach {
             it.largeClock.run { events.onThemeChanged(theme.copy(isDarkTheme = isRegionDark)) }
             it.smallClock.run { events.onThemeChanged(theme.copy(isDarkTheme = isRegionDark)) }
         }
@@ -153,12 +285,16 @@ constructor(
         return (colors?.colorHints?.and(WallpaperColors.HINT_SUPPORTS_DARK_TEXT)) == 0
     }
 
+    /**
+     * Only a live controller is updated. A controller created later picks up the time format in
+     * [createClockController], so this never creates one just to update it.
+     */
     override fun updateTimeFormat(clockId: String) {
-        getController(clockId)
-            .events
-            .onTimeFormatChanged(android.text.format.DateFormat.is24HourFormat(appContext))
+        getLiveController(clockId)?.events?.onTimeFormatChanged(is24HourFormat())
     }
 
+    private fun is24HourFormat() = android.text.format.DateFormat.is24HourFormat(appContext)
+
     override fun registerTimeTicker(owner: LifecycleOwner) {
         val hashCode = owner.hashCode()
         if (timeTickListeners.keys.contains(hashCode)) {
@@ -171,14 +307,46 @@ constructor(
     override fun onDestroy() {
         timeTickListeners.forEach { (_, timeTicker) -> appContext.unregisterReceiver(timeTicker) }
         timeTickListeners.clear()
-        clockControllers.clear()
-        smallClockFrames.clear()
+        synchronized(lock) {
+            clockControllers.clear()
+            pinnedClockIds = emptySet()
+            smallClockFrames.clear()
+            staleClockFaces.clear()
+        }
+        hasAllClocksSeedColor = false
+        allClocksSeedColor = null
+        ClockPickerTrace.logDump()
     }
 
+    /**
+     * Ticks only the clock faces that are on screen. Faces scrolled out of the carousel or in a
+     * detached fragment are marked stale instead and catch up in [catchUpTimeTick].
+     */
     private fun onTimeTick() {
-        clockControllers.values.forEach {
-            it.largeClock.events.onTimeTick()
-            it.smallClock.events.onTimeTick()
+        liveControllers().forEach {
+            tickIfVisible(it, it.largeClock)
+            tickIfVisible(it, it.smallClock)
+        }
+    }
+
+    private fun tickIfVisible(controller: ClockController, clockFace: ClockFaceController) {
+        val view = clockFace.view
+        if (view.isAttachedToWindow && view.isShown && view.getGlobalVisibleRect(visibleRect)) {
+            synchronized(lock) { staleClockFaces.remove(clockFace) }
+            clockFace.events.onTimeTick()
+        } else {
+            synchronized(lock) {
+                // A controller evicted since the snapshot was taken must not be kept alive here.
+                if (isLiveLocked(controller)) {
+                    staleClockFaces.add(clockFace)
+                }
+            }
+        }
+    }
+
+    private fun catchUpTimeTick(clockFace: ClockFaceController) {
+        if (synchronized(lock) { staleClockFaces.remove(clockFace) }) {
+            clockFace.events.onTimeTick()
         }
     }
 
@@ -191,6 +359,19 @@ constructor(
     }
 
     private fun initClockController(clockId: String): ClockController {
+        val startNanos = SystemClock.elapsedRealtimeNanos()
+        return ClockPickerTrace.traceSection("ThemePickerClockViewFactory#initClockController") {
+                createClockController(clockId)
+            }
+            .also {
+                ClockPickerTrace.recordClockCreated(
+                    clockId,
+                    SystemClock.elapsedRealtimeNanos() - startNanos,
+                )
+            }
+    }
+
+    private fun createClockController(clockId: String): ClockController {
         val isWallpaperDark = isLockscreenWallpaperDark()
         val controller =
             registry.createExampleClock(clockId).also { it?.initialize(isWallpaperDark, 0f, 0f) }
@@ -216,6 +397,25 @@ constructor(
         )
         controller.smallClock.events.onTargetRegionChanged(getSmallClockRegion())
         controller.events.onWeatherDataChanged(WeatherData.getPlaceholderWeatherData())
+        controller.events.onTimeFormatChanged(is24HourFormat())
+        listOf(controller.largeClock, controller.smallClock).forEach { clockFace ->
+            clockFace.view.addOnAttachStateChangeListener(
+                object : View.OnAttachStateChangeListener {
+                    override fun onViewAttachedToWindow(view: View) {
+                        catchUpTimeTick(clockFace)
+                    }
+
+                    override fun onViewDetachedFromWindow(view: View) {}
+                }
+            )
+        }
+
+        // A controller evicted from the pool and created again must look like its live peers.
+        if (hasAllClocksSeedColor) {
+            val seedColor = allClocksSeedColor
+            controller.largeClock.run { events.onThemeChanged(theme.copy(seedColor = seedColor)) }
+            controller.smallClock.run { events.onThemeChanged(theme.copy(seedColor = seedColor)) }
+        }
         return controller
     }
 
@@ -251,7 +451,18 @@ constructor(
         return Rect(getSmallClockStartPadding(), topMargin, screenSize.x, topMargin + targetHeight)
     }
 
+    private class EvictedController(
+        val controller: ClockController,
+        val smallClockFrame: FrameLayout?,
+    )
+
     companion object {
+        /**
+         * The carousel shows five clocks at a time. Keep a few more so that the active clock and a
+         * clock swiped just out of view do not need a new controller.
+         */
+        private const val MAX_LIVE_CLOCK_CONTROLLERS = 8
+
         private fun getStatusBarHeight(context: Context): Int {
             val display = context.displayNoVerify
             if (display != null) {
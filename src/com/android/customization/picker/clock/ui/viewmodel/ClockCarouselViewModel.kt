@@ -23,12 +23,10 @@ import androidx.lifecycle.viewModelScope
 import com.android.customization.module.logging.ThemesUserEventLogger
 import com.android.customization.picker.clock.domain.interactor.ClockPickerInteractor
 import com.android.customization.picker.clock.shared.ClockSize
-import com.android.customization.picker.clock.ui.view.ClockViewFactory
 import com.android.themepicker.R
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.Job
-import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
@@ -47,7 +45,6 @@ import kotlinx.coroutines.launch
 class ClockCarouselViewModel(
     private val interactor: ClockPickerInteractor,
     private val backgroundDispatcher: CoroutineDispatcher,
-    private val clockViewFactory: ClockViewFactory,
     private val resources: Resources,
     private val logger: ThemesUserEventLogger,
 ) : ViewModel() {
@@ -55,13 +52,11 @@ class ClockCarouselViewModel(
     val allClocks: StateFlow<List<ClockCarouselItemViewModel>> =
         interactor.allClocks
             .mapLatest { allClocks ->
-                // Delay to avoid the case that the full list of clocks is not initiated.
-                delay(CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
                 allClocks.map {
                     val contentDescription =
                         resources.getString(
                             R.string.select_clock_action_description,
-                            clockViewFactory.getController(it.clockId).config.description
+                            it.description,
                         )
                     ClockCarouselItemViewModel(it.clockId, it.isSelected, contentDescription)
                 }
@@ -138,7 +133,6 @@ class ClockCarouselViewModel(
     class Factory(
         private val interactor: ClockPickerInteractor,
         private val backgroundDispatcher: CoroutineDispatcher,
-        private val clockViewFactory: ClockViewFactory,
         private val resources: Resources,
         private val logger: ThemesUserEventLogger,
     ) : ViewModelProvider.Factory {
@@ -147,7 +141,6 @@ class ClockCarouselViewModel(
             return ClockCarouselViewModel(
                 interactor = interactor,
                 backgroundDispatcher = backgroundDispatcher,
-                clockViewFactory = clockViewFactory,
                 resources = resources,
                 logger = logger,
             )
@@ -156,7 +149,6 @@ class ClockCarouselViewModel(
     }
 
     companion object {
-        const val CLOCKS_EVENT_UPDATE_DELAY_MILLIS: Long = 100
         const val CARD_COLOR_CHANGE_LUMINANCE_THRESHOLD_LIGHT_THEME: Float = 0.85f
         const val CARD_COLOR_CHANGE_LUMINANCE_THRESHOLD_DARK_THEME: Float = 0.03f
     }
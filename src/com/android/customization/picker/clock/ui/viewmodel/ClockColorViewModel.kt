@@ -19,6 +19,7 @@ package com.android.customization.picker.clock.ui.viewmodel
 import android.annotation.ColorInt
 import android.content.res.Resources
 import android.graphics.Color
+import androidx.core.graphics.ColorUtils
 import com.android.themepicker.R
 
 /** The view model that defines custom clock colors. */
@@ -30,13 +31,47 @@ data class ClockColorViewModel(
     private val colorToneMax: Double,
 ) {
 
+    /**
+     * [color] blended with the color tone of every slider progress from 0 to 100. Built on first
+     * use so that moving the slider is a table lookup.
+     */
+    private val toneColors: IntArray by lazy {
+        val colorLab = DoubleArray(3)
+        ColorUtils.colorToLAB(color, colorLab)
+        IntArray(MAX_PROGRESS + 1) { progress ->
+            ColorUtils.LABToColor(getColorTone(progress), colorLab[1], colorLab[2])
+        }
+    }
+
     fun getColorTone(progress: Int): Double {
         return colorToneMin + (progress.toDouble() * (colorToneMax - colorToneMin)) / 100
     }
 
+    /** Returns [color] blended with the color tone of [progress], like [blendColorWithTone]. */
+    @ColorInt
+    fun getColorWithTone(progress: Int): Int {
+        return toneColors[progress.coerceIn(0, MAX_PROGRESS)]
+    }
+
+    /** Builds the tone lookup table now, e.g. on a background thread ahead of slider use. */
+    fun prewarm() {
+        toneColors
+    }
+
     companion object {
         private const val DEFAULT_COLOR_TONE_MIN = 0
         private const val DEFAULT_COLOR_TONE_MAX = 100
+        private const val MAX_PROGRESS = 100
+
+        private val helperColorLab = ThreadLocal.withInitial { DoubleArray(3) }
+
+        /** Returns [color] with its L* replaced by [colorTone]. Safe to call from any thread. */
+        @ColorInt
+        fun blendColorWithTone(@ColorInt color: Int, colorTone: Double): Int {
+            val colorLab = helperColorLab.get()
+            ColorUtils.colorToLAB(color, colorLab)
+            return ColorUtils.LABToColor(colorTone, colorLab[1], colorLab[2])
+        }
 
         fun getPresetColorMap(resources: Resources): Map<String, ClockColorViewModel> {
             val ids = resources.getStringArray(R.array.clock_color_ids)
@@ -16,7 +16,6 @@
 package com.android.customization.picker.clock.ui.viewmodel
 
 import android.content.Context
-import androidx.core.graphics.ColorUtils
 import androidx.lifecycle.ViewModel
 import androidx.lifecycle.ViewModelProvider
 import androidx.lifecycle.viewModelScope
@@ -35,7 +34,6 @@ import com.android.themepicker.R
 import com.android.wallpaper.picker.common.text.ui.viewmodel.Text
 import com.android.wallpaper.picker.option.ui.viewmodel.OptionItemViewModel
 import kotlinx.coroutines.ExperimentalCoroutinesApi
-import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.SharingStarted
@@ -100,21 +98,13 @@ private constructor(
         sliderColorToneProgress.value = progress
         val selectedColorId = selectedColorId.value ?: return
         val clockColorViewModel = colorMap[selectedColorId] ?: return
-        _seedColor.value =
-            blendColorWithTone(
-                color = clockColorViewModel.color,
-                colorTone = clockColorViewModel.getColorTone(progress),
-            )
+        _seedColor.value = clockColorViewModel.getColorWithTone(progress)
     }
 
     suspend fun onSliderProgressStop(progress: Int) {
         val selectedColorId = selectedColorId.value ?: return
         val clockColorViewModel = colorMap[selectedColorId] ?: return
-        val seedColor =
-            blendColorWithTone(
-                color = clockColorViewModel.color,
-                colorTone = clockColorViewModel.getColorTone(progress),
-            )
+        val seedColor = clockColorViewModel.getColorWithTone(progress)
         clockPickerInteractor.setClockColor(
             selectedColorId = selectedColorId,
             colorToneProgress = progress,
@@ -125,15 +115,20 @@ private constructor(
 
     @OptIn(ExperimentalCoroutinesApi::class)
     val colorOptions: Flow<List<OptionItemViewModel<ColorOptionIconViewModel>>> =
-        colorPickerInteractor.colorOptions.map { colorOptions ->
-            // Use mapLatest and delay(100) here to prevent too many selectedClockColor update
-            // events from ClockRegistry upstream, caused by sliding the saturation level bar.
-            delay(COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS)
+        combine(colorPickerInteractor.colorOptions, colorPickerInteractor.selectedColorOptionKey) {
+            colorOptions,
+            selectedColorOptionKey ->
+            // The shared color options are replayed as they were built, so their isSelected can be
+            // stale. The applied option is only tracked by selectedColorOptionKey.
             buildList {
                 val defaultThemeColorOptionViewModel =
-                    (colorOptions[ColorType.WALLPAPER_COLOR]?.find { it.isSelected })
+                    (colorOptions[ColorType.WALLPAPER_COLOR]?.find {
+                            it.key == selectedColorOptionKey
+                        })
                         ?.toOptionItemViewModel(context)
-                        ?: (colorOptions[ColorType.PRESET_COLOR]?.find { it.isSelected })
+                        ?: (colorOptions[ColorType.PRESET_COLOR]?.find {
+                                it.key == selectedColorOptionKey
+                            })
                             ?.toOptionItemViewModel(context)
                 if (defaultThemeColorOptionViewModel != null) {
                     add(defaultThemeColorOptionViewModel)
@@ -176,13 +171,7 @@ private constructor(
                                         {
                                             viewModelScope.launch {
                                                 val seedColor =
-                                                    blendColorWithTone(
-                                                        color = colorModel.color,
-                                                        colorTone =
-                                                            colorModel.getColorTone(
-                                                                colorToneProgress,
-                                                            ),
-                                                    )
+                                                    colorModel.getColorWithTone(colorToneProgress)
                                                 clockPickerInteractor.setClockColor(
                                                     selectedColorId = colorModel.colorId,
                                                     colorToneProgress = colorToneProgress,
@@ -298,18 +287,9 @@ private constructor(
         }
 
     companion object {
-        private val helperColorLab: DoubleArray by lazy { DoubleArray(3) }
-
         fun blendColorWithTone(color: Int, colorTone: Double): Int {
-            ColorUtils.colorToLAB(color, helperColorLab)
-            return ColorUtils.LABToColor(
-                colorTone,
-                helperColorLab[1],
-                helperColorLab[2],
-            )
+            return ClockColorViewModel.blendColorWithTone(color, colorTone)
         }
-
-        const val COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS: Long = 100
     }
 
     class Factory(
@@ -32,6 +32,12 @@ interface ColorPickerRepository {
     /** List of wallpaper and preset color options on the device, categorized by Color Type */
     val colorOptions: Flow<Map<ColorType, List<ColorOptionModel>>>
 
+    /**
+     * Key of the applied option in [colorOptions], or null if none of them is applied. Emits
+     * whenever the selection changes, without [colorOptions] having to emit again.
+     */
+    val selectedColorOptionKey: Flow<String?>
+
     /** Selects a color option with optimistic update */
     suspend fun select(colorOptionModel: ColorOptionModel)
 
@@ -18,23 +18,32 @@ package com.android.customization.picker.color.data.repository
 
 import android.util.Log
 import com.android.customization.model.CustomizationManager
+import com.android.customization.model.color.ActiveColorSelection
 import com.android.customization.model.color.ColorCustomizationManager
 import com.android.customization.model.color.ColorOption
 import com.android.customization.model.color.ColorOptionImpl
+import com.android.customization.model.color.ColorOptionsDiskCache
 import com.android.customization.picker.color.shared.model.ColorOptionModel
 import com.android.customization.picker.color.shared.model.ColorType
 import com.android.systemui.monet.Style
 import com.android.wallpaper.config.BaseFlags
 import com.android.wallpaper.picker.customization.data.repository.WallpaperColorsRepository
 import com.android.wallpaper.picker.customization.shared.model.WallpaperColorsModel
+import com.android.wallpaper.picker.di.modules.MainDispatcher
 import javax.inject.Inject
 import javax.inject.Singleton
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.distinctUntilChanged
 import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.shareIn
+import kotlinx.coroutines.flow.transformLatest
 import kotlinx.coroutines.suspendCancellableCoroutine
 
 // TODO (b/262924623): refactor to remove dependency on ColorCustomizationManager & ColorOption
@@ -45,6 +54,8 @@ class ColorPickerRepositoryImpl
 constructor(
     wallpaperColorsRepository: WallpaperColorsRepository,
     private val colorManager: ColorCustomizationManager,
+    private val colorOptionsDiskCache: ColorOptionsDiskCache,
+    @MainDispatcher mainScope: CoroutineScope,
 ) : ColorPickerRepository {
 
     private val isNewPickerUi = BaseFlags.get().isNewPickerUi()
@@ -59,86 +70,107 @@ constructor(
     private val _isApplyingSystemColor = MutableStateFlow(false)
     override val isApplyingSystemColor = _isApplyingSystemColor.asStateFlow()
 
+    @OptIn(ExperimentalCoroutinesApi::class)
     private val generatedColorOptions: Flow<Map<ColorType, List<ColorOptionImpl>>> =
         combine(homeWallpaperColors, lockWallpaperColors) { homeColors, lockColors ->
                 homeColors to lockColors
             }
-            .map { (homeColors, lockColors) ->
-                suspendCancellableCoroutine { continuation ->
-                    if (
-                        homeColors is WallpaperColorsModel.Loading ||
-                            lockColors is WallpaperColorsModel.Loading
-                    ) {
-                        continuation.resumeWith(
-                            Result.success(
-                                mapOf(
-                                    ColorType.WALLPAPER_COLOR to listOf(),
-                                    ColorType.PRESET_COLOR to listOf(),
-                                    ColorType.DERPFEST_COLOR to listOf(),
-                                )
-                            )
+            .transformLatest { (homeColors, lockColors) ->
+                if (
+                    homeColors is WallpaperColorsModel.Loading ||
+                        lockColors is WallpaperColorsModel.Loading
+                ) {
+                    emit(
+                        mapOf(
+                            ColorType.WALLPAPER_COLOR to listOf(),
+                            ColorType.PRESET_COLOR to listOf(),
+                            ColorType.DERPFEST_COLOR to listOf(),
+                        )
+                    )
+                    return@transformLatest
+                }
+                val homeColorsLoaded = homeColors as WallpaperColorsModel.Loaded
+                val lockColorsLoaded = lockColors as WallpaperColorsModel.Loaded
+                // Serve the options persisted by a previous process first, then verify them
+                // against a fresh generation and replace them if anything changed.
+                val cachedColorOptions =
+                    colorOptionsDiskCache.read(homeColorsLoaded.colors, lockColorsLoaded.colors)
+                if (cachedColorOptions != null) {
+                    emit(
+                        ColorType.values().associateWith { type ->
+                            cachedColorOptions.filter { it.type == type }
+                        }
+                    )
+                }
+                val generated = fetchColorOptions(homeColorsLoaded, lockColorsLoaded)
+                val generatedColorOptions = ColorType.values().flatMap { generated[it] ?: listOf() }
+                if (
+                    cachedColorOptions != null &&
+                        colorOptionsDiskCache.contentEquals(
+                            cachedColorOptions,
+                            generatedColorOptions,
                         )
-                        return@suspendCancellableCoroutine
+                ) {
+                    // The cached options are already published and persisted.
+                    return@transformLatest
+                }
+                emit(generated)
+                colorOptionsDiskCache.write(
+                    homeColorsLoaded.colors,
+                    lockColorsLoaded.colors,
+                    generatedColorOptions,
+                )
+            }
+
+    private suspend fun fetchColorOptions(
+        homeColors: WallpaperColorsModel.Loaded,
+        lockColors: WallpaperColorsModel.Loaded,
+    ): Map<ColorType, List<ColorOptionImpl>> = suspendCancellableCoroutine { continuation ->
+        colorManager.setWallpaperColors(homeColors.colors, lockColors.colors)
+        colorManager.fetchOptions(
+            object : CustomizationManager.OptionsFetchedListener<ColorOption?> {
+                override fun onOptionsLoaded(options: MutableList<ColorOption?>?) {
+                    val wallpaperColorOptions: MutableList<ColorOptionImpl> = mutableListOf()
+                    val presetColorOptions: MutableList<ColorOptionImpl> = mutableListOf()
+                    val derpfestColorOptions: MutableList<ColorOptionImpl> = mutableListOf()
+                    options?.forEach { option ->
+                        when ((option as ColorOptionImpl).type) {
+                            ColorType.WALLPAPER_COLOR -> wallpaperColorOptions.add(option)
+                            ColorType.PRESET_COLOR -> presetColorOptions.add(option)
+                            ColorType.DERPFEST_COLOR -> derpfestColorOptions.add(option)
+                        }
                     }
-                    val homeColorsLoaded = homeColors as WallpaperColorsModel.Loaded
-                    val lockColorsLoaded = lockColors as WallpaperColorsModel.Loaded
-                    colorManager.setWallpaperColors(
-                        homeColorsLoaded.colors,
-                        lockColorsLoaded.colors,
+                    continuation.resumeWith(
+                        Result.success(
+                            mapOf(
+                                ColorType.WALLPAPER_COLOR to wallpaperColorOptions,
+                                ColorType.PRESET_COLOR to presetColorOptions,
+                                ColorType.DERPFEST_COLOR to derpfestColorOptions,
+                            )
+                        )
                     )
-                    colorManager.fetchOptions(
-                        object : CustomizationManager.OptionsFetchedListener<ColorOption?> {
-                            override fun onOptionsLoaded(options: MutableList<ColorOption?>?) {
-                                val wallpaperColorOptions: MutableList<ColorOptionImpl> =
-                                    mutableListOf()
-                                val presetColorOptions: MutableList<ColorOptionImpl> =
-                                    mutableListOf()
-                                val derpfestColorOptions: MutableList<ColorOptionImpl> =
-                                    mutableListOf()
-                                options?.forEach { option ->
-                                    when ((option as ColorOptionImpl).type) {
-                                        ColorType.WALLPAPER_COLOR ->
-                                            wallpaperColorOptions.add(option)
-                                        ColorType.PRESET_COLOR -> presetColorOptions.add(option)
-                                        ColorType.DERPFEST_COLOR ->
-                                            derpfestColorOptions.add(option)
-                                    }
-                                }
-                                continuation.resumeWith(
-                                    Result.success(
-                                        mapOf(
-                                            ColorType.WALLPAPER_COLOR to wallpaperColorOptions,
-                                            ColorType.PRESET_COLOR to presetColorOptions,
-                                            ColorType.DERPFEST_COLOR to derpfestColorOptions,
-                                        )
-                                    )
-                                )
-                            }
+                }
 
-                            override fun onError(throwable: Throwable?) {
-                                Log.e(TAG, "Error loading theme bundles", throwable)
-                                continuation.resumeWith(
-                                    Result.failure(
-                                        throwable ?: Throwable("Error loading theme bundles")
-                                    )
-                                )
-                            }
-                        },
-                        /* reload= */ false,
+                override fun onError(throwable: Throwable?) {
+                    Log.e(TAG, "Error loading theme bundles", throwable)
+                    continuation.resumeWith(
+                        Result.failure(throwable ?: Throwable("Error loading theme bundles"))
                     )
                 }
-            }
+            },
+            /* reload= */ false,
+        )
+    }
 
-    override val colorOptions: Flow<Map<ColorType, List<ColorOptionModel>>> =
+    private val unsharedColorOptions: Flow<Map<ColorType, List<ColorOptionModel>>> =
         if (isNewPickerUi) {
-            // Convert to ColorOptionModel. When the selected color option changes, update each
-            // ColorOptionModel's isSelected by calling toModel again.
-            combine(generatedColorOptions, selectedColorOption) { generatedColorOptions, _ ->
-                generatedColorOptions
-                    .map { entry ->
-                        entry.key to entry.value.map { colorOption -> colorOption.toModel() }
-                    }
-                    .toMap()
+            // Convert to ColorOptionModel once per generated list. Selection changes are published
+            // through selectedColorOptionKey instead of rebuilding every model.
+            generatedColorOptions.map { generatedColorOptions ->
+                val activeSelection = colorManager.activeColorSelection
+                generatedColorOptions.mapValues { entry ->
+                    entry.value.map { colorOption -> colorOption.toModel(activeSelection) }
+                }
             }
         } else {
             combine(homeWallpaperColors, lockWallpaperColors) { homeColors, lockColors ->
@@ -176,14 +208,16 @@ constructor(
                                         mutableListOf()
                                     val derpfestColorOptions: MutableList<ColorOptionModel> =
                                         mutableListOf()
+                                    val activeSelection = colorManager.activeColorSelection
                                     options?.forEach { option ->
-                                        when ((option as ColorOptionImpl).type) {
+                                        val model =
+                                            (option as ColorOptionImpl).toModel(activeSelection)
+                                        when (option.type) {
                                             ColorType.WALLPAPER_COLOR ->
-                                                wallpaperColorOptions.add(option.toModel())
-                                            ColorType.PRESET_COLOR ->
-                                                presetColorOptions.add(option.toModel())
+                                                wallpaperColorOptions.add(model)
+                                            ColorType.PRESET_COLOR -> presetColorOptions.add(model)
                                             ColorType.DERPFEST_COLOR ->
-                                                derpfestColorOptions.add(option.toModel())
+                                                derpfestColorOptions.add(model)
                                         }
                                     }
                                     continuation.resumeWith(
@@ -212,6 +246,23 @@ constructor(
                 }
         }
 
+    // Shared so that every collector, including selectedColorOptionKey, reuses one fetch.
+    override val colorOptions: Flow<Map<ColorType, List<ColorOptionModel>>> =
+        unsharedColorOptions.shareIn(
+            mainScope,
+            replay = 1,
+            started = SharingStarted.WhileSubscribed(),
+        )
+
+    override val selectedColorOptionKey: Flow<String?> =
+        combine(colorOptions, selectedColorOption) { colorOptions, _ ->
+                val activeSelection = colorManager.activeColorSelection
+                colorOptions.values.firstNotNullOfOrNull { options ->
+                    options.firstOrNull { activeSelection.matches(it.colorOption) }?.key
+                }
+            }
+            .distinctUntilChanged()
+
     override suspend fun select(colorOptionModel: ColorOptionModel) {
         _isApplyingSystemColor.value = true
         suspendCancellableCoroutine { continuation ->
@@ -261,13 +312,14 @@ constructor(
         return colorManager.currentColorSource
     }
 
-    private fun ColorOptionImpl.toModel(): ColorOptionModel {
+    private fun ColorOptionImpl.toModel(activeSelection: ActiveColorSelection): ColorOptionModel {
         return ColorOptionModel(
-            key = "${this.type}::${this.style}::${this.serializedPackages}",
+            key = "${this.type}::${this.style}::${this.packagesKey}",
             colorOption = this,
             // Instead of using the selectedColorOption flow to determine isSelected, we check the
-            // source of truth, which is the settings, using ColorOption::isActive
-            isSelected = isActive(colorManager),
+            // source of truth, which is the settings, resolved once per list rather than re-parsed
+            // for every option.
+            isSelected = activeSelection.matches(this),
         )
     }
 
@@ -26,9 +26,11 @@ import com.android.customization.model.color.ColorUtils.toColorString
 import com.android.customization.picker.color.shared.model.ColorOptionModel
 import com.android.customization.picker.color.shared.model.ColorType
 import com.android.systemui.monet.Style
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.map
 
 class FakeColorPickerRepository(private val context: Context) : ColorPickerRepository {
 
@@ -48,6 +50,11 @@ class FakeColorPickerRepository(private val context: Context) : ColorPickerRepos
     override val colorOptions: StateFlow<Map<ColorType, List<ColorOptionModel>>> =
         _colorOptions.asStateFlow()
 
+    override val selectedColorOptionKey: Flow<String?> =
+        _colorOptions.map { colorOptions ->
+            colorOptions.values.flatten().firstOrNull { it.isSelected }?.key
+        }
+
     init {
         setOptions(4, 4, ColorType.WALLPAPER_COLOR, 0)
     }
@@ -18,18 +18,22 @@ package com.android.customization.picker.color.data.util
 import android.app.WallpaperColors
 import android.content.Context
 import android.content.res.Configuration
-import android.provider.Settings
 import android.util.Log
+import android.util.LruCache
 import android.util.SparseIntArray
+import androidx.annotation.VisibleForTesting
 import com.android.customization.model.ResourceConstants
+import com.android.customization.model.color.ColorSchemeCache
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository
 import com.android.systemui.monet.ColorScheme
 import com.android.systemui.monet.Style
-import com.android.systemui.shared.settings.data.repository.SecureSettingsRepository
+import com.android.wallpaper.picker.di.modules.BackgroundDispatcher
 import dagger.hilt.android.qualifiers.ApplicationContext
 import javax.inject.Inject
 import javax.inject.Singleton
-import org.json.JSONException
-import org.json.JSONObject
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.ensureActive
+import kotlinx.coroutines.withContext
 
 /**
  * Extract material next colors from wallpaper colors. Based on Nexus Launcher's
@@ -40,8 +44,11 @@ class MaterialColorsGenerator
 @Inject
 constructor(
     @ApplicationContext private val applicationContext: Context,
-    private val secureSettingsRepository: SecureSettingsRepository,
+    private val overlaySettingsRepository: ThemeOverlaySettingsRepository,
+    @BackgroundDispatcher private val bgDispatcher: CoroutineDispatcher,
 ) {
+    private val palettes = LruCache<PaletteKey, Pair<IntArray, IntArray>>(PALETTE_CACHE_SIZE)
+
     private fun addShades(shades: List<Int>, resources: IntArray, output: SparseIntArray) {
         if (shades.size != resources.size) {
             Log.e(TAG, "The number of shades computed doesn't match the number of resources.")
@@ -55,7 +62,8 @@ constructor(
     /**
      * Generates the mapping from system color resources to values from wallpaper colors.
      *
-     * @return a list of color resource IDs and a corresponding list of their color values
+     * @return a list of color resource IDs and a corresponding list of their color values. The
+     *   resource ID list is shared and must not be modified.
      */
     suspend fun generate(colors: WallpaperColors): Pair<IntArray, IntArray> {
         val isDarkMode =
@@ -67,15 +75,48 @@ constructor(
 
     /**
      * Generates the mapping from system color resources to values from color seed and style.
+     * Recently generated or prefetched mappings are returned from a small cache.
      *
-     * @return a list of color resource IDs and a corresponding list of their color values
+     * @return a list of color resource IDs and a corresponding list of their color values. Both
+     *   lists are shared and must not be modified.
      */
     fun generate(colorSeed: Int, @Style.Type style: Int): Pair<IntArray, IntArray> {
+        val key = paletteKey(colorSeed, style)
+        palettes.get(key)?.let {
+            return it
+        }
+        return generate(ColorSchemeCache.get(colorSeed, key.isDarkMode, style)).also {
+            palettes.put(key, it)
+        }
+    }
+
+    /** Returns the cached mapping for the given color seed and style, without generating it. */
+    @VisibleForTesting
+    internal fun getCachedPalette(
+        colorSeed: Int,
+        @Style.Type style: Int,
+    ): Pair<IntArray, IntArray>? {
+        return palettes.get(paletteKey(colorSeed, style))
+    }
+
+    private fun paletteKey(colorSeed: Int, @Style.Type style: Int): PaletteKey {
         val isDarkMode =
             (applicationContext.resources.configuration.uiMode and
                 Configuration.UI_MODE_NIGHT_MASK) == Configuration.UI_MODE_NIGHT_YES
-        val colorScheme = ColorScheme(colorSeed, isDarkMode, style)
-        return generate(colorScheme)
+        return PaletteKey(colorSeed, style, isDarkMode)
+    }
+
+    /**
+     * Generates and caches the mappings for the given color seed and style pairs in the background,
+     * so that a later [generate] call for one of them returns immediately.
+     */
+    suspend fun prefetch(seedsAndStyles: List<Pair<Int, Int>>) {
+        withContext(bgDispatcher) {
+            seedsAndStyles.forEach { (colorSeed, style) ->
+                ensureActive()
+                generate(colorSeed, style)
+            }
+        }
     }
 
     private fun generate(colorScheme: ColorScheme): Pair<IntArray, IntArray> {
@@ -88,34 +129,31 @@ constructor(
         allAccentColors.addAll(colorScheme.accent2.allShades)
         allAccentColors.addAll(colorScheme.accent3.allShades)
 
-        return Pair(
-            NEUTRAL_RESOURCES + ACCENT_RESOURCES,
-            (allNeutralColors + allAccentColors).toIntArray(),
-        )
+        return Pair(ALL_RESOURCES, (allNeutralColors + allAccentColors).toIntArray())
     }
 
     @Style.Type
-    private suspend fun fetchThemeStyleFromSetting(): Int {
-        val overlayPackageJson =
-            secureSettingsRepository.getString(Settings.Secure.THEME_CUSTOMIZATION_OVERLAY_PACKAGES)
-        return if (!overlayPackageJson.isNullOrEmpty()) {
-            try {
-                val jsonObject = JSONObject(overlayPackageJson)
-                Style.valueOf(jsonObject.getString(ResourceConstants.OVERLAY_CATEGORY_THEME_STYLE))
-            } catch (e: (JSONException)) {
-                Log.i(TAG, "Failed to parse THEME_CUSTOMIZATION_OVERLAY_PACKAGES.", e)
-                Style.TONAL_SPOT
-            } catch (e: IllegalArgumentException) {
-                Log.i(TAG, "Failed to parse THEME_CUSTOMIZATION_OVERLAY_PACKAGES.", e)
-                Style.TONAL_SPOT
-            }
-        } else {
+    private fun fetchThemeStyleFromSetting(): Int {
+        val styleName =
+            overlaySettingsRepository.getOverlays()[ResourceConstants.OVERLAY_CATEGORY_THEME_STYLE]
+                ?: return Style.TONAL_SPOT
+        return try {
+            Style.valueOf(styleName)
+        } catch (e: IllegalArgumentException) {
+            Log.i(TAG, "Failed to parse THEME_CUSTOMIZATION_OVERLAY_PACKAGES.", e)
             Style.TONAL_SPOT
         }
     }
 
+    private data class PaletteKey(
+        val colorSeed: Int,
+        @Style.Type val style: Int,
+        val isDarkMode: Boolean,
+    )
+
     companion object {
         private const val TAG = "MaterialColorsGenerator"
+        private const val PALETTE_CACHE_SIZE = 24
 
         private val ACCENT_RESOURCES =
             intArrayOf(
@@ -188,5 +226,8 @@ constructor(
                 android.R.color.system_neutral2_900,
                 android.R.color.system_neutral2_1000,
             )
+
+        /** Every resource ID, in the order [generate] returns their colors. */
+        private val ALL_RESOURCES = NEUTRAL_RESOURCES + ACCENT_RESOURCES
     }
 }
@@ -48,6 +48,9 @@ constructor(
             _selectingColorOption.value = null
         }
 
+    /** Key of the applied color option in [colorOptions], or null if none of them is applied. */
+    val selectedColorOptionKey = repository.selectedColorOptionKey
+
     suspend fun select(colorOptionModel: ColorOptionModel) {
         _selectingColorOption.value = colorOptionModel
         try {
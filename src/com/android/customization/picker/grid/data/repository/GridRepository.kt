@@ -65,7 +65,7 @@ class GridRepositoryImpl(
     }
 
     override fun getOptionChanges(): Flow<Unit> =
-        manager.getOptionChangeObservable(/* handler= */ null).asFlow().map {}
+        manager.getOptionChangeObservable().asFlow().map {}
 
     private val selectedOption = MutableStateFlow<GridOption?>(null)
 
@@ -20,17 +20,24 @@ package com.android.customization.picker.grid.data.repository
 import com.android.customization.model.grid.GridOptionModel
 import com.android.customization.model.grid.ShapeGridManager
 import com.android.customization.model.grid.ShapeOptionModel
+import com.android.customization.picker.grid.shared.model.GridOptionsDiff
+import com.android.customization.picker.grid.shared.model.gridOptionsDiffs
 import com.android.wallpaper.picker.di.modules.BackgroundDispatcher
 import javax.inject.Inject
 import javax.inject.Singleton
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.filterNotNull
 import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
 import kotlinx.coroutines.withContext
 
 @Singleton
@@ -45,11 +52,17 @@ constructor(
     private val _shapeOptions = MutableStateFlow<List<ShapeOptionModel>?>(null)
     private val _gridOptions = MutableStateFlow<List<GridOptionModel>?>(null)
 
+    /** Serializes publishing options with setting and clearing [pendingSelection]. */
+    private val publishMutex = Mutex()
+    /**
+     * The keys last applied, until the launcher lists them as its current options or
+     * [PENDING_SELECTION_TIMEOUT_MILLIS] pass. Guarded by [publishMutex].
+     */
+    private var pendingSelection: PendingSelection? = null
+
     init {
-        bgScope.launch {
-            _gridOptions.value = manager.getGridOptions()
-            _shapeOptions.value = manager.getShapeOptions()
-        }
+        bgScope.launch { reloadOptions() }
+        bgScope.launch { manager.shapeGridChanges.collect { reloadOptions() } }
     }
 
     val shapeOptions: StateFlow<List<ShapeOptionModel>?> = _shapeOptions.asStateFlow()
@@ -59,14 +72,107 @@ constructor(
 
     val gridOptions: StateFlow<List<GridOptionModel>?> = _gridOptions.asStateFlow()
 
+    /**
+     * The grid options, as the diff of each update from the previous one. The options are queried
+     * again whenever the launcher reports a change, and updates that changed nothing are skipped.
+     */
+    val gridOptionChanges: Flow<GridOptionsDiff<GridOptionModel>> =
+        gridOptions
+            .filterNotNull()
+            .gridOptionsDiffs(
+                key = { it.key },
+                isCurrent = { it.isCurrent },
+                content = { it.copy(isCurrent = false) },
+            )
+
     val selectedGridOption: Flow<GridOptionModel?> =
         gridOptions.map { gridOptions -> gridOptions?.firstOrNull { it.isCurrent } }
 
     suspend fun applySelectedOption(shapeKey: String, gridKey: String) =
         withContext(bgDispatcher) {
-            manager.applyShapeGridOption(shapeKey, gridKey)
-            // After applying, we should query and update shape and grid options again.
-            _gridOptions.value = manager.getGridOptions()
-            _shapeOptions.value = manager.getShapeOptions()
+            val updated = manager.applyShapeGridOption(shapeKey, gridKey)
+            if (updated <= 0) {
+                // The launcher rejected the change, so read back what it actually has.
+                publishMutex.withLock { pendingSelection = null }
+                reloadOptions()
+                return@withContext
+            }
+            // The launcher is busy reloading its workspace right after the change, so querying it
+            // again now is slow and may return the old options. Select the applied options in
+            // place instead, and keep them selected until the launcher lists them as current.
+            val selection = PendingSelection(shapeKey, gridKey)
+            publishMutex.withLock {
+                pendingSelection = selection
+                _shapeOptions.update { options -> options?.let { selection.selectShapes(it) } }
+                _gridOptions.update { options -> options?.let { selection.selectGrids(it) } }
+            }
+            expireAfterTimeout(selection)
+        }
+
+    /**
+     * Drops [selection] if the launcher still does not list it as current after
+     * [PENDING_SELECTION_TIMEOUT_MILLIS], and shows what the launcher actually has instead. A
+     * launcher that accepted the change but never applied it must not leave a wrong selection up.
+     */
+    private fun expireAfterTimeout(selection: PendingSelection) {
+        bgScope.launch {
+            delay(PENDING_SELECTION_TIMEOUT_MILLIS)
+            val isExpired =
+                publishMutex.withLock {
+                    // A later apply or a confirming reload has replaced it already.
+                    (pendingSelection === selection).also { if (it) pendingSelection = null }
+                }
+            if (isExpired) {
+                reloadOptions()
+            }
+        }
+    }
+
+    private suspend fun reloadOptions() {
+        val options = manager.getShapeGridOptions()
+        publishMutex.withLock {
+            var shapeOptions = options.shapeOptions
+            var gridOptions = options.gridOptions
+            pendingSelection?.let { selection ->
+                if (selection.isConfirmedBy(shapeOptions, gridOptions)) {
+                    pendingSelection = null
+                } else {
+                    // The launcher notifies its change synchronously, before it lists the applied
+                    // options as current. Keep the applied selection over such a stale result.
+                    shapeOptions = shapeOptions?.let { selection.selectShapes(it) }
+                    gridOptions = gridOptions?.let { selection.selectGrids(it) }
+                }
+            }
+            _gridOptions.value = gridOptions
+            _shapeOptions.value = shapeOptions
         }
+    }
+
+    private data class PendingSelection(val shapeKey: String, val gridKey: String) {
+
+        fun selectShapes(options: List<ShapeOptionModel>): List<ShapeOptionModel> =
+            options.map { it.copy(isCurrent = it.key == shapeKey) }
+
+        fun selectGrids(options: List<GridOptionModel>): List<GridOptionModel> =
+            options.map { it.copy(isCurrent = it.key == gridKey) }
+
+        /**
+         * Whether the launcher lists the applied options as current. A key the launcher does not
+         * list at all can never be confirmed, so it does not hold the selection back.
+         */
+        fun isConfirmedBy(
+            shapeOptions: List<ShapeOptionModel>?,
+            gridOptions: List<GridOptionModel>?,
+        ): Boolean {
+            val isShapeConfirmed =
+                shapeOptions?.firstOrNull { it.key == shapeKey }?.isCurrent ?: true
+            val isGridConfirmed = gridOptions?.firstOrNull { it.key == gridKey }?.isCurrent ?: true
+            return isShapeConfirmed && isGridConfirmed
+        }
+    }
+
+    companion object {
+        /** How long the launcher may take to list applied options as current. */
+        private const val PENDING_SELECTION_TIMEOUT_MILLIS = 3_000L
+    }
 }
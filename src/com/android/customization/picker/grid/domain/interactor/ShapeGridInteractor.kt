@@ -30,6 +30,8 @@ class ShapeGridInteractor @Inject constructor(private val repository: ShapeGridR
 
     val gridOptions = repository.gridOptions
 
+    val gridOptionChanges = repository.gridOptionChanges
+
     val selectedGridOption = repository.selectedGridOption
 
     suspend fun applySelectedOption(shapeKey: String, gridKey: String) =
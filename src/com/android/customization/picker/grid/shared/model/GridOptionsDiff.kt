@@ -0,0 +1,98 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.picker.grid.shared.model
+
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flow
+
+/**
+ * What changed, by option key, between two snapshots of grid options.
+ *
+ * @property options the newer snapshot
+ * @property addedKeys keys of options that are new in [options]
+ * @property removedKeys keys of options that are no longer in [options]
+ * @property currentChangedKeys keys of options that became, or stopped being, the current option
+ * @property contentChangedKeys keys of options whose content, e.g. title or size, changed. Items
+ *   built from the older option are stale and have to be built again.
+ */
+data class GridOptionsDiff<T>(
+    val options: List<T>,
+    val addedKeys: Set<String>,
+    val removedKeys: Set<String>,
+    val currentChangedKeys: Set<String>,
+    val contentChangedKeys: Set<String>,
+) {
+
+    val isEmpty: Boolean
+        get() =
+            addedKeys.isEmpty() &&
+                removedKeys.isEmpty() &&
+                currentChangedKeys.isEmpty() &&
+                contentChangedKeys.isEmpty()
+
+    companion object {
+        /**
+         * Returns the diff from [old] to [new]. Every option is added if there is no [old].
+         *
+         * @param content the parts of an option that its item is built from, other than whether it
+         *   is current. Options whose content is not equal are reported in [contentChangedKeys].
+         */
+        fun <T> between(
+            old: List<T>?,
+            new: List<T>,
+            key: (T) -> String,
+            isCurrent: (T) -> Boolean,
+            content: (T) -> Any?,
+        ): GridOptionsDiff<T> {
+            val oldByKey = old.orEmpty().associateBy(key)
+            val newKeys = HashSet<String>(new.size)
+            val addedKeys = mutableSetOf<String>()
+            val currentChangedKeys = mutableSetOf<String>()
+            val contentChangedKeys = mutableSetOf<String>()
+            new.forEach { option ->
+                val optionKey = key(option)
+                newKeys.add(optionKey)
+                val oldOption = oldByKey[optionKey]
+                if (oldOption == null) {
+                    addedKeys.add(optionKey)
+                    return@forEach
+                }
+                if (isCurrent(oldOption) != isCurrent(option)) {
+                    currentChangedKeys.add(optionKey)
+                }
+                if (content(oldOption) != content(option)) {
+                    contentChangedKeys.add(optionKey)
+                }
+            }
+            return GridOptionsDiff(
+                options = new,
+                addedKeys = addedKeys,
+                removedKeys = oldByKey.keys - newKeys,
+                currentChangedKeys = currentChangedKeys,
+                contentChangedKeys = contentChangedKeys,
+            )
+        }
+    }
+}
+
+/**
+ * Emits the diff of each snapshot of grid options from the previous one, skipping snapshots that
+ * changed nothing. The first snapshot is always emitted, with all of its options added.
+ */
+fun <T> Flow<List<T>>.gridOptionsDiffs(
+    key: (T) -> String,
+    isCurrent: (T) -> Boolean,
+    content: (T) -> Any?,
+): Flow<GridOptionsDiff<T>> = flow {
+    var previous: List<T>? = null
+    collect { options ->
+        val diff = GridOptionsDiff.between(previous, options, key, isCurrent, content)
+        if (previous == null || !diff.isEmpty) {
+            emit(diff)
+        }
+        previous = options
+    }
+}
@@ -11,6 +11,7 @@ object GridIconViewBinder {
                 viewModel.columns,
                 viewModel.rows,
                 viewModel.path,
+                /* rasterize= */ true,
             )
         )
     }
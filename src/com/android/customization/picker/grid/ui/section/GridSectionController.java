@@ -72,7 +72,7 @@ public class GridSectionController implements CustomizationSectionController<Gri
 
         // Fetch grid options to show currently set grid.
         updateUi(/* The result is getting when calling isAvailable(), so reload= */ false);
-        mGridOptionsManager.getOptionChangeObservable(/* handler= */ null).observe(
+        mGridOptionsManager.getOptionChangeObservable().observe(
                 mLifecycleOwner,
                 mOptionChangeObserver);
 
@@ -88,7 +88,7 @@ public class GridSectionController implements CustomizationSectionController<Gri
     @Override
     public void release() {
         if (mGridOptionsManager.isAvailable()) {
-            mGridOptionsManager.getOptionChangeObservable(/* handler= */ null).removeObserver(
+            mGridOptionsManager.getOptionChangeObservable().removeObserver(
                     mOptionChangeObserver
             );
         }
@@ -25,13 +25,20 @@ import androidx.lifecycle.ViewModelProvider
 import androidx.lifecycle.viewModelScope
 import com.android.customization.model.ResourceConstants
 import com.android.customization.picker.grid.domain.interactor.GridInteractor
+import com.android.customization.picker.grid.shared.model.GridOptionItemModel
 import com.android.customization.picker.grid.shared.model.GridOptionItemsModel
+import com.android.customization.picker.grid.shared.model.GridOptionsDiff
 import com.android.wallpaper.picker.common.text.ui.viewmodel.Text
 import com.android.wallpaper.picker.option.ui.viewmodel.OptionItemViewModel
+import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.flatMapLatest
 import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.stateIn
 import kotlinx.coroutines.launch
 
 class GridScreenViewModel(
@@ -42,12 +49,46 @@ class GridScreenViewModel(
     @SuppressLint("StaticFieldLeak") // We're not leaking this context as it is the app context.
     private val applicationContext = context.applicationContext
 
+    /** The item view model of a grid option and the latest model of the option it shows. */
+    private class OptionItem(
+        val latestOption: MutableStateFlow<GridOptionItemModel>,
+        val viewModel: OptionItemViewModel<GridIconViewModel>,
+    )
+
+    // The item of each grid option, by key. Every snapshot of the options hands its models to the
+    // existing items, so the items observe the latest selection and select the latest option,
+    // while only added and renamed options get new items.
+    private val optionItemsByKey = mutableMapOf<String, OptionItem>()
+    private var previousOptions: List<GridOptionItemModel>? = null
+
     val optionItems: Flow<List<OptionItemViewModel<GridIconViewModel>>> =
-        interactor.options.map { model -> toViewModel(model) }
+        interactor.options
+            .map { model ->
+                when (model) {
+                    is GridOptionItemsModel.Loaded -> model.options
+                    is GridOptionItemsModel.Error -> emptyList()
+                }
+            }
+            .map { options -> toViewModel(options) }
+            .distinctUntilChanged()
 
     private fun toViewModel(
-        model: GridOptionItemsModel,
+        options: List<GridOptionItemModel>,
     ): List<OptionItemViewModel<GridIconViewModel>> {
+        val diff =
+            GridOptionsDiff.between(
+                old = previousOptions,
+                new = options,
+                key = { it.key() },
+                isCurrent = { it.isSelected.value },
+                content = { it.name },
+            )
+        previousOptions = options
+        diff.removedKeys.forEach { optionItemsByKey.remove(it) }
+        diff.contentChangedKeys.forEach { optionItemsByKey.remove(it) }
+        if (options.isEmpty()) {
+            return emptyList()
+        }
         val iconShapePath =
             applicationContext.resources.getString(
                 Resources.getSystem()
@@ -58,35 +99,55 @@ class GridScreenViewModel(
                     )
             )
 
-        return when (model) {
-            is GridOptionItemsModel.Loaded ->
-                model.options.map { option ->
-                    val text = Text.Loaded(option.name)
-                    OptionItemViewModel<GridIconViewModel>(
-                        key =
-                            MutableStateFlow("${option.cols}x${option.rows}") as StateFlow<String>,
-                        payload =
-                            GridIconViewModel(
-                                columns = option.cols,
-                                rows = option.rows,
-                                path = iconShapePath,
-                            ),
-                        text = text,
-                        isSelected = option.isSelected,
-                        onClicked =
-                            option.isSelected.map { isSelected ->
-                                if (!isSelected) {
-                                    { viewModelScope.launch { option.onSelected() } }
-                                } else {
-                                    null
-                                }
-                            },
-                    )
-                }
-            is GridOptionItemsModel.Error -> emptyList()
+        return options.map { option ->
+            val item = optionItemsByKey[option.key()]
+            if (item != null) {
+                item.latestOption.value = option
+                item.viewModel
+            } else {
+                toOptionItem(option, iconShapePath)
+                    .also { optionItemsByKey[option.key()] = it }
+                    .viewModel
+            }
         }
     }
 
+    @OptIn(ExperimentalCoroutinesApi::class)
+    private fun toOptionItem(option: GridOptionItemModel, iconShapePath: String): OptionItem {
+        val latestOption = MutableStateFlow(option)
+        val isSelectedFlow =
+            latestOption
+                .flatMapLatest { it.isSelected }
+                .stateIn(
+                    scope = viewModelScope,
+                    started = SharingStarted.WhileSubscribed(),
+                    initialValue = option.isSelected.value,
+                )
+        val viewModel =
+            OptionItemViewModel<GridIconViewModel>(
+                key = MutableStateFlow(option.key()) as StateFlow<String>,
+                payload =
+                    GridIconViewModel(
+                        columns = option.cols,
+                        rows = option.rows,
+                        path = iconShapePath,
+                    ),
+                text = Text.Loaded(option.name),
+                isSelected = isSelectedFlow,
+                onClicked =
+                    isSelectedFlow.map { isSelected ->
+                        if (!isSelected) {
+                            { viewModelScope.launch { latestOption.value.onSelected() } }
+                        } else {
+                            null
+                        }
+                    },
+            )
+        return OptionItem(latestOption, viewModel)
+    }
+
+    private fun GridOptionItemModel.key(): String = "${cols}x${rows}"
+
     class Factory(
         context: Context,
         private val interactor: GridInteractor,
@@ -1,5 +1,6 @@
 package com.android.customization.widget;
 
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.ColorFilter;
 import android.graphics.Matrix;
@@ -9,7 +10,7 @@ import android.graphics.PixelFormat;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 
-import androidx.core.graphics.PathParser;
+import androidx.annotation.Nullable;
 
 /**
  * Drawable that draws a grid rows x cols of icon shapes adjusting their size to fit within its
@@ -26,15 +27,28 @@ public class GridTileDrawable extends Drawable {
     private final Path mShapePath;
     private final Path mTransformedPath;
     private final Matrix mScaleMatrix;
+    private final boolean mRasterize;
+    private final String mTileKey;
     private float mCellSize = -1f;
+    @Nullable private Bitmap mTile;
 
     public GridTileDrawable(int cols, int rows, String path) {
+        this(cols, rows, path, /* rasterize= */ false);
+    }
+
+    /**
+     * @param rasterize whether to draw the grid once into a bitmap shared by every drawable of the
+     *                  same grid, shape and size, instead of drawing each cell on every frame
+     */
+    public GridTileDrawable(int cols, int rows, String path, boolean rasterize) {
         mCols = cols;
         mRows = rows;
 
-        mShapePath = PathParser.createPathFromPathData(path);
+        mShapePath = ShapeTileCache.getPath(path);
         mTransformedPath = new Path(mShapePath);
         mScaleMatrix = new Matrix();
+        mRasterize = rasterize;
+        mTileKey = rasterize ? "grid:" + cols + "x" + rows + ":" + path : null;
     }
 
     @Override
@@ -46,10 +60,24 @@ public class GridTileDrawable extends Drawable {
         float scaleFactor = (mCellSize - 2 * SPACE_BETWEEN_ICONS) / PATH_SIZE;
         mScaleMatrix.setScale(scaleFactor, scaleFactor);
         mShapePath.transform(mScaleMatrix, mTransformedPath);
+        mTile = null;
     }
 
     @Override
     public void draw(Canvas canvas) {
+        Rect bounds = getBounds();
+        if (!mRasterize || bounds.isEmpty()) {
+            drawCells(canvas, mPaint);
+            return;
+        }
+        if (mTile == null) {
+            mTile = ShapeTileCache.getTile(
+                    mTileKey, bounds.width(), bounds.height(), this::drawCells);
+        }
+        canvas.drawBitmap(mTile, bounds.left, bounds.top, mPaint);
+    }
+
+    private void drawCells(Canvas canvas, Paint paint) {
         double size = getBounds().width();
 
         for (int r = 0; r < mRows; r++) {
@@ -58,7 +86,7 @@ public class GridTileDrawable extends Drawable {
                 float y = (float) ((r * size / mRows) + SPACE_BETWEEN_ICONS);
                 float x = (float) ((c * size / mCols) + SPACE_BETWEEN_ICONS);
                 canvas.translate(x, y);
-                canvas.drawPath(mTransformedPath, mPaint);
+                canvas.drawPath(mTransformedPath, paint);
                 canvas.restoreToCount(saveCount);
             }
         }
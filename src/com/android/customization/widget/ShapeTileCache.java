@@ -0,0 +1,71 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.LruCache;
+
+import androidx.core.graphics.PathParser;
+
+/**
+ * Process-wide caches of parsed icon shape paths and of tiles rasterized from them, shared by
+ * {@link GridTileDrawable} and the shape tile drawables.
+ *
+ * <p>Tiles are kept as alpha masks, so one tile serves every tint: the drawable's paint color,
+ * alpha and color filter are applied when the mask is drawn.
+ */
+public final class ShapeTileCache {
+
+    private static final int MAX_PATHS = 32;
+    private static final int MAX_TILE_BYTES = 1024 * 1024;
+
+    private static final LruCache<String, Path> sPaths = new LruCache<>(MAX_PATHS);
+    private static final LruCache<String, Bitmap> sTiles = new LruCache<String, Bitmap>(
+            MAX_TILE_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap value) {
+            return value.getAllocationByteCount();
+        }
+    };
+
+    /** Draws a tile with an opaque paint onto a canvas of the tile's size. */
+    public interface TileRenderer {
+        void render(Canvas canvas, Paint paint);
+    }
+
+    private ShapeTileCache() {}
+
+    /**
+     * Returns the path parsed from {@code pathData}. The path is shared, so callers must not
+     * modify it.
+     */
+    public static Path getPath(String pathData) {
+        Path path = sPaths.get(pathData);
+        if (path == null) {
+            path = PathParser.createPathFromPathData(pathData);
+            sPaths.put(pathData, path);
+        }
+        return path;
+    }
+
+    /**
+     * Returns the tile identified by {@code key} at the given size, rendering it with
+     * {@code renderer} if it is not cached yet.
+     */
+    public static Bitmap getTile(String key, int width, int height, TileRenderer renderer) {
+        String tileKey = key + '@' + width + 'x' + height;
+        Bitmap tile = sTiles.get(tileKey);
+        if (tile == null) {
+            tile = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+            renderer.render(new Canvas(tile), new Paint(Paint.ANTI_ALIAS_FLAG));
+            sTiles.put(tileKey, tile);
+        }
+        return tile;
+    }
+}
@@ -40,10 +40,13 @@ import com.android.wallpaper.picker.customization.ui.view.adapter.FloatingToolba
 import com.android.wallpaper.picker.customization.ui.viewmodel.ColorUpdateViewModel
 import com.android.wallpaper.picker.option.ui.adapter.OptionItemAdapter2
 import java.lang.ref.WeakReference
+import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.launch
 
 object ColorsFloatingSheetBinder {
 
+    private const val PALETTE_PREFETCH_DISTANCE = 2
+
     fun bind(
         view: View,
         optionsViewModel: ThemePickerCustomizationOptionsViewModel,
@@ -75,6 +78,29 @@ object ColorsFloatingSheetBinder {
             lifecycleOwner = lifecycleOwner,
         )
 
+        // Prefetches the palettes of the visible options and of a few options on each side, so that
+        // tapping one of them previews it without waiting for its palette to be generated.
+        var lastPrefetchedPositions: IntRange? = null
+        val prefetchPalettes = {
+            val layoutManager = colorsList.layoutManager as LinearLayoutManager
+            val first = layoutManager.findFirstVisibleItemPosition()
+            val last = layoutManager.findLastVisibleItemPosition()
+            if (first != RecyclerView.NO_POSITION && last != RecyclerView.NO_POSITION) {
+                val positions = first - PALETTE_PREFETCH_DISTANCE..last + PALETTE_PREFETCH_DISTANCE
+                if (positions != lastPrefetchedPositions) {
+                    lastPrefetchedPositions = positions
+                    viewModel.prefetchPalettes(positions)
+                }
+            }
+        }
+        colorsList.addOnScrollListener(
+            object : RecyclerView.OnScrollListener() {
+                override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+                    prefetchPalettes()
+                }
+            }
+        )
+
         lifecycleOwner.lifecycleScope.launch {
             lifecycleOwner.repeatOnLifecycle(Lifecycle.State.STARTED) {
                 launch { viewModel.colorTypeTabs.collect { tabAdapter.submitList(it) } }
@@ -83,11 +109,15 @@ object ColorsFloatingSheetBinder {
 
                 launch {
                     viewModel.colorOptions.collect { colorOptions ->
+                        val focusedKey = viewModel.focusedColorOptionKey.first()
                         colorsAdapter.setItems(colorOptions) {
-                            var indexToFocus = colorOptions.indexOfFirst { it.isSelected.value }
+                            var indexToFocus =
+                                colorOptions.indexOfFirst { it.key.value == focusedKey }
                             indexToFocus = if (indexToFocus < 0) 0 else indexToFocus
                             (colorsList.layoutManager as LinearLayoutManager)
                                 .scrollToPositionWithOffset(indexToFocus, 0)
+                            lastPrefetchedPositions = null
+                            colorsList.post { prefetchPalettes() }
                         }
                     }
                 }
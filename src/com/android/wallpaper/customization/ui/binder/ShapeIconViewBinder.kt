@@ -22,6 +22,6 @@ import com.android.wallpaper.customization.ui.view.ShapeTileDrawable
 
 object ShapeIconViewBinder {
     fun bind(view: ImageView, shapeIcon: ShapeIconViewModel) {
-        view.setImageDrawable(ShapeTileDrawable(shapeIcon.path))
+        view.setImageDrawable(ShapeTileDrawable(shapeIcon.path, rasterize = true))
     }
 }
@@ -51,7 +51,9 @@ import com.android.wallpaper.picker.customization.ui.viewmodel.CustomizationPick
 import javax.inject.Inject
 import javax.inject.Singleton
 import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.android.awaitFrame
 import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.conflate
 import kotlinx.coroutines.launch
 
 @Singleton
@@ -311,20 +313,36 @@ constructor(private val defaultCustomizationOptionsBinder: DefaultCustomizationO
                     combine(
                             clockPickerViewModel.previewingSeedColor,
                             clockPickerViewModel.previewingClock,
-                            clockPickerViewModel.previewingClockFontAxisMap,
                             colorUpdateViewModel.systemColorsUpdated,
-                            ::Quadruple,
+                            ::Triple,
                         )
-                        .collect { quadruple ->
-                            val (color, clock, axisMap, _) = quadruple
+                        // The color tone slider emits faster than the screen refreshes. Re-theme
+                        // the clock at most once per frame, with the latest color.
+                        .conflate()
+                        .collect { (color, clock, _) ->
                             clockViewFactory.updateColor(clock.clockId, color)
+                            awaitFrame()
+                        }
+                }
+
+                launch {
+                    combine(
+                            clockPickerViewModel.previewingClock,
+                            clockPickerViewModel.previewingClockFontAxisMap,
+                            colorUpdateViewModel.systemColorsUpdated,
+                            ::Triple,
+                        )
+                        // Dragging a font axis slider emits far more often than the screen
+                        // refreshes, and each update re-shapes the clock text. Only re-shape once
+                        // per frame, with the latest value of every axis.
+                        .conflate()
+                        .collect { (clock, axisMap, _) ->
                             val axisList = axisMap.map { ClockFontAxisSetting(it.key, it.value) }
                             clockViewFactory.updateFontAxes(clock.clockId, axisList)
+                            awaitFrame()
                         }
                 }
             }
         }
     }
-
-    data class Quadruple<A, B, C, D>(val first: A, val second: B, val third: C, val fourth: D)
 }
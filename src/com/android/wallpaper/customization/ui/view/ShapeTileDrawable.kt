@@ -16,6 +16,7 @@
 
 package com.android.wallpaper.customization.ui.view
 
+import android.graphics.Bitmap
 import android.graphics.Canvas
 import android.graphics.ColorFilter
 import android.graphics.Matrix
@@ -24,28 +25,45 @@ import android.graphics.Path
 import android.graphics.PixelFormat
 import android.graphics.Rect
 import android.graphics.drawable.Drawable
-import androidx.core.graphics.PathParser
+import com.android.customization.widget.ShapeTileCache
 
 /**
  * Drawable that draws a shape tile with a given path.
  *
  * @param path Path of the shape assuming drawing on a 100x100 canvas.
+ * @param rasterize Whether to draw the shape once into a bitmap shared by every drawable of the
+ *   same shape and size, instead of drawing the path on every frame.
  */
-class ShapeTileDrawable(path: String) : Drawable() {
+class ShapeTileDrawable(path: String, private val rasterize: Boolean = false) : Drawable() {
 
     private val paint = Paint(Paint.ANTI_ALIAS_FLAG)
-    private val path = PathParser.createPathFromPathData(path)
+    private val path = ShapeTileCache.getPath(path)
     // The path scaled with regard to the update of drawable bounds
     private val scaledPath = Path(this.path)
     private val scaleMatrix = Matrix()
+    private val tileKey = "shape:$path"
+    private var tile: Bitmap? = null
 
     override fun onBoundsChange(bounds: Rect) {
         super.onBoundsChange(bounds)
         scaleMatrix.setScale(bounds.width() / PATH_SIZE, bounds.height() / PATH_SIZE)
         path.transform(scaleMatrix, scaledPath)
+        tile = null
     }
 
     override fun draw(canvas: Canvas) {
+        if (!rasterize || bounds.isEmpty) {
+            canvas.drawPath(scaledPath, paint)
+            return
+        }
+        val tile =
+            tile
+                ?: ShapeTileCache.getTile(tileKey, bounds.width(), bounds.height(), ::drawTile)
+                    .also { tile = it }
+        canvas.drawBitmap(tile, bounds.left.toFloat(), bounds.top.toFloat(), paint)
+    }
+
+    private fun drawTile(canvas: Canvas, paint: Paint) {
         canvas.drawPath(scaledPath, paint)
     }
 
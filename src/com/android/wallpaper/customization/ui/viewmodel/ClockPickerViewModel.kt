@@ -18,9 +18,9 @@ package com.android.wallpaper.customization.ui.viewmodel
 import android.content.Context
 import android.content.res.Resources
 import android.graphics.drawable.Drawable
-import androidx.core.graphics.ColorUtils
 import com.android.customization.model.color.ColorOptionImpl
 import com.android.customization.module.logging.ThemesUserEventLogger
+import com.android.customization.picker.clock.data.util.ClockThumbnailCache
 import com.android.customization.picker.clock.domain.interactor.ClockPickerInteractor
 import com.android.customization.picker.clock.shared.ClockSize
 import com.android.customization.picker.clock.shared.model.ClockMetadataModel
@@ -45,7 +45,6 @@ import dagger.hilt.android.scopes.ViewModelScoped
 import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.ExperimentalCoroutinesApi
-import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.SharingStarted
@@ -59,6 +58,7 @@ import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.mapLatest
 import kotlinx.coroutines.flow.shareIn
 import kotlinx.coroutines.flow.stateIn
+import kotlinx.coroutines.launch
 
 /** View model for the clock customization screen. */
 class ClockPickerViewModel
@@ -69,6 +69,7 @@ constructor(
     private val clockPickerInteractor: ClockPickerInteractor,
     colorPickerInteractor: ColorPickerInteractor,
     private val logger: ThemesUserEventLogger,
+    private val clockThumbnailCache: ClockThumbnailCache,
     @BackgroundDispatcher private val backgroundDispatcher: CoroutineDispatcher,
     @Assisted private val viewModelScope: CoroutineScope,
 ) {
@@ -79,7 +80,11 @@ constructor(
         FONT,
     }
 
-    private val colorMap = ClockColorViewModel.getPresetColorMap(context.resources)
+    private val colorMap =
+        ClockColorViewModel.getPresetColorMap(context.resources).also { colorMap ->
+            // Build the tone lookup tables before the color tone slider first needs them.
+            viewModelScope.launch(backgroundDispatcher) { colorMap.values.forEach { it.prewarm() } }
+        }
 
     // Tabs
     private val _selectedTab = MutableStateFlow(Tab.STYLE)
@@ -127,12 +132,9 @@ constructor(
 
     data class ClockStyleModel(val thumbnail: Drawable, val showEditButton: StateFlow<Boolean>)
 
-    @OptIn(ExperimentalCoroutinesApi::class)
     val clockStyleOptions: StateFlow<List<OptionItemViewModel2<ClockStyleModel>>> =
         clockPickerInteractor.allClocks
-            .mapLatest { allClocks ->
-                // Delay to avoid the case that the full list of clocks is not initiated.
-                delay(CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+            .map { allClocks ->
                 val allClockMap = allClocks.groupBy { it.fontAxes.isNotEmpty() }
                 buildList {
                     allClockMap[true]?.map { add(it.toOption(resources)) }
@@ -153,9 +155,17 @@ constructor(
         val showEditButton = isSelectedFlow.map { it && isEditable }.stateIn(viewModelScope)
         val contentDescription =
             resources.getString(R.string.select_clock_action_description, description)
+        val thumbnailBitmap =
+            clockThumbnailCache.get(
+                clockId,
+                thumbnail,
+                resources.getDimensionPixelSize(
+                    R.dimen.floating_sheet_clock_style_option_thumbnail_size
+                ),
+            )
         return OptionItemViewModel2<ClockStyleModel>(
             key = MutableStateFlow(clockId) as StateFlow<String>,
-            payload = ClockStyleModel(thumbnail = thumbnail, showEditButton = showEditButton),
+            payload = ClockStyleModel(thumbnail = thumbnailBitmap, showEditButton = showEditButton),
             text = Text.Loaded(contentDescription),
             isTextUserVisible = false,
             isSelected = isSelectedFlow,
@@ -191,18 +201,17 @@ constructor(
         combine(overrideClockFontAxisMap, selectedClockFontAxisMap.filterNotNull()) {
                 overrideAxisMap,
                 selectedAxisMap ->
-                overrideAxisMap?.let {
-                    val mutableMap = selectedAxisMap.toMutableMap()
-                    overrideAxisMap.forEach { (key, value) -> mutableMap[key] = value }
-                    mutableMap.toMap()
-                } ?: selectedAxisMap
+                overrideAxisMap?.let { selectedAxisMap + it } ?: selectedAxisMap
             }
             .stateIn(viewModelScope, SharingStarted.Eagerly, emptyMap())
 
     fun updatePreviewFontAxis(key: String, value: Float) {
-        val axisMap = (overrideClockFontAxisMap.value?.toMutableMap() ?: mutableMapOf())
-        axisMap[key] = value
-        overrideClockFontAxisMap.value = axisMap.toMap()
+        val overrides = overrideClockFontAxisMap.value
+        // Sliders report the same value repeatedly while held; only publish actual changes.
+        if (overrides?.get(key) == value) {
+            return
+        }
+        overrideClockFontAxisMap.value = overrides?.plus(key to value) ?: mapOf(key to value)
     }
 
     fun confirmFontAxes() {
@@ -284,23 +293,25 @@ constructor(
             if (clockColorViewModel == null) {
                 null
             } else {
-                blendColorWithTone(
-                    color = clockColorViewModel.color,
-                    colorTone = clockColorViewModel.getColorTone(sliderProgress),
-                )
+                clockColorViewModel.getColorWithTone(sliderProgress)
             }
         }
 
     val clockColorOptions: Flow<List<OptionItemViewModel<ColorOptionIconViewModel>>> =
-        colorPickerInteractor.colorOptions.map { colorOptions ->
-            // Use mapLatest and delay(100) here to prevent too many selectedClockColor update
-            // events from ClockRegistry upstream, caused by sliding the saturation level bar.
-            delay(COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS)
+        combine(colorPickerInteractor.colorOptions, colorPickerInteractor.selectedColorOptionKey) {
+            colorOptions,
+            selectedColorOptionKey ->
+            // The shared color options are replayed as they were built, so their isSelected can be
+            // stale. The applied option is only tracked by selectedColorOptionKey.
             buildList {
                 val defaultThemeColorOptionViewModel =
-                    (colorOptions[ColorType.WALLPAPER_COLOR]?.find { it.isSelected })
+                    (colorOptions[ColorType.WALLPAPER_COLOR]?.find {
+                            it.key == selectedColorOptionKey
+                        })
                         ?.toOptionItemViewModel(context)
-                        ?: (colorOptions[ColorType.PRESET_COLOR]?.find { it.isSelected })
+                        ?: (colorOptions[ColorType.PRESET_COLOR]?.find {
+                                it.key == selectedColorOptionKey
+                            })
                             ?.toOptionItemViewModel(context)
                 if (defaultThemeColorOptionViewModel != null) {
                     add(defaultThemeColorOptionViewModel)
@@ -442,13 +453,7 @@ constructor(
                         size = size,
                         selectedColorId = previewingColorId,
                         colorToneProgress = previewProgress,
-                        seedColor =
-                            colorMap[previewingColorId]?.let {
-                                blendColorWithTone(
-                                    color = it.color,
-                                    colorTone = it.getColorTone(previewProgress),
-                                )
-                            },
+                        seedColor = colorMap[previewingColorId]?.getColorWithTone(previewProgress),
                         axisSettings = axisMap.map { ClockFontAxisSetting(it.key, it.value) },
                     )
                 }
@@ -468,15 +473,6 @@ constructor(
 
     companion object {
         private const val DEFAULT_CLOCK_COLOR_ID = "DEFAULT"
-        private val helperColorLab: DoubleArray by lazy { DoubleArray(3) }
-
-        fun blendColorWithTone(color: Int, colorTone: Double): Int {
-            ColorUtils.colorToLAB(color, helperColorLab)
-            return ColorUtils.LABToColor(colorTone, helperColorLab[1], helperColorLab[2])
-        }
-
-        const val COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS: Long = 100
-        const val CLOCKS_EVENT_UPDATE_DELAY_MILLIS: Long = 100
     }
 
     @ViewModelScoped
@@ -19,6 +19,7 @@ package com.android.wallpaper.customization.ui.viewmodel
 import android.content.Context
 import com.android.customization.model.color.ColorOptionImpl
 import com.android.customization.module.logging.ThemesUserEventLogger
+import com.android.customization.picker.color.data.util.MaterialColorsGenerator
 import com.android.customization.picker.color.domain.interactor.ColorPickerInteractor
 import com.android.customization.picker.color.shared.model.ColorOptionModel
 import com.android.customization.picker.color.shared.model.ColorType
@@ -36,11 +37,14 @@ import dagger.hilt.android.scopes.ViewModelScoped
 import kotlin.coroutines.resume
 import kotlinx.coroutines.CancellableContinuation
 import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Job
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.asStateFlow
 import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.stateIn
 import kotlinx.coroutines.launch
@@ -52,6 +56,7 @@ class ColorPickerViewModel2
 constructor(
     @ApplicationContext context: Context,
     private val interactor: ColorPickerInteractor,
+    private val materialColorsGenerator: MaterialColorsGenerator,
     private val logger: ThemesUserEventLogger,
     @Assisted private val viewModelScope: CoroutineScope,
 ) {
@@ -61,6 +66,7 @@ constructor(
 
     private val selectedColorTypeTabId = MutableStateFlow<ColorType?>(null)
     private var onApplyContinuation: CancellableContinuation<Unit>? = null
+    private var prefetchJob: Job? = null
 
     /** View-models for each color tab. */
     val colorTypeTabs: Flow<List<FloatingToolbarTabViewModel>> =
@@ -116,10 +122,35 @@ constructor(
             }
         }
 
-    /** The list of all color options mapped by their color type */
+    /** Key of the applied color option, shared by every option item. */
+    private val selectedColorOptionKey: StateFlow<String?> =
+        interactor.selectedColorOptionKey.stateIn(
+            viewModelScope,
+            SharingStarted.WhileSubscribed(),
+            initialValue = null,
+        )
+
+    /**
+     * Key of the option the color list should scroll to: the previewed option, or the applied one
+     * when nothing is previewed.
+     */
+    val focusedColorOptionKey: Flow<String?> =
+        combine(previewingColorOption, interactor.selectedColorOptionKey) {
+            previewing,
+            selectedKey ->
+            previewing?.key ?: selectedKey
+        }
+
+    /**
+     * The list of all color options mapped by their color type. The items are only rebuilt when
+     * the options change; a selection change only flips the isSelected state of the affected items.
+     */
     private val allColorOptions:
         Flow<Map<ColorType, List<OptionItemViewModel2<ColorOptionIconViewModel>>>> =
         interactor.colorOptions.map { colorOptions ->
+            // The options may have been built before the latest selection, so start every item
+            // from the current key rather than from the isSelected of this snapshot.
+            val currentSelectedKey = interactor.selectedColorOptionKey.first()
             colorOptions
                 .map { colorOptionEntry ->
                     colorOptionEntry.key to
@@ -131,12 +162,22 @@ constructor(
                             val darkThemeColors =
                                 colorOption.previewInfo.resolveColors(/* darkTheme= */ true)
                             val isSelectedFlow: StateFlow<Boolean> =
-                                previewingColorOption
-                                    .map {
-                                        it?.colorOption?.isEquivalent(colorOptionModel.colorOption)
-                                            ?: colorOptionModel.isSelected
+                                combine(previewingColorOption, selectedColorOptionKey) {
+                                        previewing,
+                                        selectedKey ->
+                                        previewing?.colorOption?.isEquivalent(
+                                            colorOptionModel.colorOption
+                                        ) ?: (selectedKey == colorOptionModel.key)
                                     }
-                                    .stateIn(viewModelScope)
+                                    .stateIn(
+                                        viewModelScope,
+                                        SharingStarted.WhileSubscribed(),
+                                        initialValue =
+                                            previewingColorOption.value
+                                                ?.colorOption
+                                                ?.isEquivalent(colorOptionModel.colorOption)
+                                                ?: (currentSelectedKey == colorOptionModel.key),
+                                    )
                             OptionItemViewModel2<ColorOptionIconViewModel>(
                                 key = MutableStateFlow(colorOptionModel.key) as StateFlow<String>,
                                 payload =
@@ -179,9 +220,11 @@ constructor(
      * change updates, which are applied with a latency.
      */
     val onApply: Flow<(suspend () -> Unit)?> =
-        previewingColorOption.map { previewingColorOption ->
+        combine(previewingColorOption, selectedColorOptionKey) {
+            previewingColorOption,
+            selectedKey ->
             previewingColorOption?.let {
-                if (it.isSelected) {
+                if (it.key == selectedKey) {
                     null
                 } else {
                     {
@@ -212,6 +255,33 @@ constructor(
         onApplyContinuation = null
     }
 
+    /**
+     * Generates in the background the preview palettes of the options at [positions] in
+     * [colorOptions], so that previewing one of them does not wait for the palette to be generated.
+     * A new call replaces any prefetch still in progress.
+     */
+    fun prefetchPalettes(positions: IntRange) {
+        prefetchJob?.cancel()
+        prefetchJob =
+            viewModelScope.launch {
+                val colorOptionModels =
+                    combine(interactor.colorOptions, selectedColorTypeTabId) {
+                            colorOptions,
+                            selectedColorTypeIdOrNull ->
+                            colorOptions[selectedColorTypeIdOrNull ?: ColorType.WALLPAPER_COLOR]
+                        }
+                        .first() ?: return@launch
+                val first = positions.first.coerceAtLeast(0)
+                val last = positions.last.coerceAtMost(colorOptionModels.lastIndex)
+                materialColorsGenerator.prefetch(
+                    (first..last).map { position ->
+                        val colorOption = colorOptionModels[position].colorOption
+                        colorOption.seedColor to colorOption.style
+                    }
+                )
+            }
+    }
+
     /** The list of all available color options for the selected Color Type. */
     val colorOptions: Flow<List<OptionItemViewModel2<ColorOptionIconViewModel>>> =
         combine(allColorOptions, selectedColorTypeTabId) {
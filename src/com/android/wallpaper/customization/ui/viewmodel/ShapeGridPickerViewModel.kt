@@ -127,10 +127,20 @@ constructor(
             overridingGridOptionKey ?: selectedGridOption.key.value
         }
 
+    // The item view model of each grid option, by key. Selection is derived from
+    // previewingGridKey, so an option that only became or stopped being current keeps its item;
+    // only added options and options whose title or size changed get new ones.
+    private val gridOptionItems = mutableMapOf<String, OptionItemViewModel2<GridIconViewModel>>()
+
     val gridOptions: Flow<List<OptionItemViewModel2<GridIconViewModel>>> =
-        interactor.gridOptions
-            .filterNotNull()
-            .map { gridOptions -> gridOptions.map { toGridOptionItemViewModel(it) } }
+        interactor.gridOptionChanges
+            .map { diff ->
+                diff.removedKeys.forEach { gridOptionItems.remove(it) }
+                diff.contentChangedKeys.forEach { gridOptionItems.remove(it) }
+                diff.options.map { option ->
+                    gridOptionItems.getOrPut(option.key) { toGridOptionItemViewModel(option) }
+                }
+            }
             .shareIn(scope = viewModelScope, started = SharingStarted.Lazily, replay = 1)
 
     val onApply: Flow<(suspend () -> Unit)?> =
@@ -18,6 +18,7 @@ package com.android.wallpaper.picker.common.preview.ui.binder
 
 import android.os.Bundle
 import android.os.Message
+import androidx.annotation.VisibleForTesting
 import androidx.core.os.bundleOf
 import androidx.lifecycle.Lifecycle
 import androidx.lifecycle.LifecycleOwner
@@ -28,6 +29,7 @@ import com.android.customization.model.grid.DefaultShapeGridManager.Companion.CO
 import com.android.customization.picker.clock.shared.ClockSize
 import com.android.customization.picker.clock.ui.view.ClockViewFactory
 import com.android.customization.picker.color.data.util.MaterialColorsGenerator
+import com.android.customization.picker.color.shared.model.ColorOptionModel
 import com.android.systemui.shared.keyguard.shared.model.KeyguardQuickAffordanceSlots.SLOT_ID_BOTTOM_END
 import com.android.systemui.shared.keyguard.shared.model.KeyguardQuickAffordanceSlots.SLOT_ID_BOTTOM_START
 import com.android.systemui.shared.quickaffordance.shared.model.KeyguardPreviewConstants.CLOCK_SIZE_DYNAMIC
@@ -49,10 +51,18 @@ import com.android.wallpaper.model.Screen
 import com.android.wallpaper.picker.common.preview.ui.binder.WorkspaceCallbackBinder.Companion.sendMessage
 import com.android.wallpaper.picker.customization.ui.viewmodel.ColorUpdateViewModel
 import com.android.wallpaper.picker.customization.ui.viewmodel.CustomizationOptionsViewModel
+import com.android.wallpaper.picker.di.modules.BackgroundDispatcher
 import javax.inject.Inject
 import javax.inject.Singleton
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.mapLatest
 import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
 
 @Singleton
 class ThemePickerWorkspaceCallbackBinder
@@ -60,6 +70,7 @@ class ThemePickerWorkspaceCallbackBinder
 constructor(
     private val defaultWorkspaceCallbackBinder: DefaultWorkspaceCallbackBinder,
     private val materialColorsGenerator: MaterialColorsGenerator,
+    @BackgroundDispatcher private val bgDispatcher: CoroutineDispatcher,
 ) : WorkspaceCallbackBinder {
 
     override fun bind(
@@ -217,29 +228,12 @@ constructor(
                         }
 
                         launch {
-                            combine(
+                            colorUpdates(
                                     viewModel.colorPickerViewModel2.previewingColorOption,
                                     viewModel.darkModeViewModel.overridingIsDarkMode,
-                                    ::Pair,
                                 )
-                                .collect { (colorModel, darkMode) ->
-                                    val bundle =
-                                        Bundle().apply {
-                                            if (colorModel != null) {
-                                                val (ids, colors) =
-                                                    materialColorsGenerator.generate(
-                                                        colorModel.colorOption.seedColor,
-                                                        colorModel.colorOption.style,
-                                                    )
-                                                putIntArray(KEY_COLOR_RESOURCE_IDS, ids)
-                                                putIntArray(KEY_COLOR_VALUES, colors)
-                                            }
-
-                                            if (darkMode != null) {
-                                                putBoolean(KEY_DARK_MODE, darkMode)
-                                            }
-                                        }
-                                    workspaceCallback.sendMessage(MESSAGE_ID_UPDATE_COLOR, bundle)
+                                .collect {
+                                    workspaceCallback.sendMessage(MESSAGE_ID_UPDATE_COLOR, it)
                                 }
                         }
                     }
@@ -247,6 +241,46 @@ constructor(
         }
     }
 
+    /**
+     * Returns the [MESSAGE_ID_UPDATE_COLOR] payloads for the previewed color option and dark mode.
+     * The preview only needs the latest palette, so a newer color option cancels the generation of
+     * a previous one, and a palette and dark mode identical to the last ones are not sent again.
+     */
+    @OptIn(ExperimentalCoroutinesApi::class)
+    @VisibleForTesting
+    internal fun colorUpdates(
+        previewingColorOption: Flow<ColorOptionModel?>,
+        overridingIsDarkMode: Flow<Boolean?>,
+    ): Flow<Bundle> =
+        combine(previewingColorOption, overridingIsDarkMode, ::Pair)
+            .mapLatest { (colorModel, darkMode) ->
+                val palette =
+                    colorModel?.let {
+                        withContext(bgDispatcher) {
+                            materialColorsGenerator.generate(
+                                it.colorOption.seedColor,
+                                it.colorOption.style,
+                            )
+                        }
+                    }
+                palette to darkMode
+            }
+            .distinctUntilChanged { (oldPalette, oldDarkMode), (newPalette, newDarkMode) ->
+                oldPalette?.second.contentEquals(newPalette?.second) && oldDarkMode == newDarkMode
+            }
+            .map { (palette, darkMode) ->
+                Bundle().apply {
+                    if (palette != null) {
+                        putIntArray(KEY_COLOR_RESOURCE_IDS, palette.first)
+                        putIntArray(KEY_COLOR_VALUES, palette.second)
+                    }
+
+                    if (darkMode != null) {
+                        putBoolean(KEY_DARK_MODE, darkMode)
+                    }
+                }
+            }
+
     companion object {
         const val MESSAGE_ID_UPDATE_SHAPE = 2586
         const val MESSAGE_ID_UPDATE_GRID = 7414
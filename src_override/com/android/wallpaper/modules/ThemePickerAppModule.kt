@@ -18,6 +18,7 @@ package com.android.wallpaper.modules
 import android.content.Context
 import com.android.customization.model.color.ColorCustomizationManager
 import com.android.customization.model.theme.OverlayManagerCompat
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository
 import com.android.customization.module.CustomizationInjector
 import com.android.customization.module.DefaultCustomizationPreferences
 import com.android.customization.module.ThemePickerInjector
@@ -195,9 +196,14 @@ abstract class ThemePickerAppModule {
         @Provides
         @Singleton
         fun provideColorCustomizationManager(
-            @ApplicationContext context: Context
+            @ApplicationContext context: Context,
+            overlaySettingsRepository: ThemeOverlaySettingsRepository,
         ): ColorCustomizationManager {
-            return ColorCustomizationManager.getInstance(context, OverlayManagerCompat(context))
+            return ColorCustomizationManager.create(
+                context,
+                overlaySettingsRepository,
+                OverlayManagerCompat(context),
+            )
         }
 
         @Provides
@@ -0,0 +1,164 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.benchmark
+
+import android.content.Context
+import android.graphics.Color
+import androidx.test.core.app.ApplicationProvider
+import com.android.customization.model.ResourceConstants.OVERLAY_CATEGORY_COLOR
+import com.android.customization.model.ResourceConstants.OVERLAY_CATEGORY_SYSTEM_PALETTE
+import com.android.customization.model.color.ColorOptionImpl
+import com.android.customization.model.color.ColorOptionsProvider.COLOR_SOURCE_HOME
+import com.android.customization.model.color.ColorProvider
+import com.android.customization.model.color.ColorSchemeCache
+import com.android.customization.model.color.DerpFestColorProvider
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository
+import com.android.customization.picker.clock.ui.viewmodel.ClockSettingsViewModel
+import com.android.customization.picker.color.data.util.MaterialColorsGenerator
+import com.android.customization.picker.color.shared.model.ColorType
+import com.android.systemui.monet.Style
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.Dispatchers
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.shadows.ShadowLog
+
+/**
+ * Microbenchmarks of the most CPU heavy color generation paths.
+ *
+ * "cold" benchmarks cycle through more seeds than [ColorSchemeCache] and the palette cache of
+ * [MaterialColorsGenerator] hold, so every operation generates a new color scheme. "warm"
+ * benchmarks reuse one seed and measure the cost on top of a cached scheme.
+ */
+@RunWith(RobolectricTestRunner::class)
+class ColorGenerationBenchmark {
+
+    private lateinit var context: Context
+    private var seedIndex = 0
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        ColorSchemeCache.clear()
+        // Robolectric keeps logs in memory; show the results in the test output.
+        ShadowLog.stream = System.out
+    }
+
+    @Test
+    fun colorProvider_buildBundle_cold() {
+        val colorProvider = ColorProvider(context, /* stubPackageName= */ "")
+
+        measure("ColorProvider.buildBundle (cold)") {
+            colorProvider.buildBundle(seed(nextSeed()), Style.TONAL_SPOT)
+        }
+    }
+
+    @Test
+    fun colorProvider_buildBundle_warm() {
+        val colorProvider = ColorProvider(context, /* stubPackageName= */ "")
+        val seed = seed(Color.BLUE)
+
+        measure("ColorProvider.buildBundle (warm)") {
+            colorProvider.buildBundle(seed, Style.TONAL_SPOT)
+        }
+    }
+
+    @Test
+    fun derpFestColorProvider_getDerpFestColors_cold() {
+        val derpFestColorProvider = DerpFestColorProvider(context)
+
+        measure("DerpFestColorProvider.getDerpFestColors (cold)") {
+            ColorSchemeCache.clear()
+            derpFestColorProvider.getDerpFestColors()
+        }
+    }
+
+    @Test
+    fun derpFestColorProvider_getDerpFestColors_warm() {
+        val derpFestColorProvider = DerpFestColorProvider(context)
+
+        measure("DerpFestColorProvider.getDerpFestColors (warm)") {
+            derpFestColorProvider.getDerpFestColors()
+        }
+    }
+
+    @Test
+    fun materialColorsGenerator_generate_cold() {
+        val generator = createMaterialColorsGenerator()
+
+        measure("MaterialColorsGenerator.generate (cold)") {
+            generator.generate(nextSeed(), Style.TONAL_SPOT)
+        }
+    }
+
+    @Test
+    fun materialColorsGenerator_generate_warm() {
+        val generator = createMaterialColorsGenerator()
+
+        measure("MaterialColorsGenerator.generate (warm)") {
+            generator.generate(Color.BLUE, Style.TONAL_SPOT)
+        }
+    }
+
+    @Test
+    fun clockSettingsViewModel_blendColorWithTone() {
+        measure("ClockSettingsViewModel.blendColorWithTone") {
+            ClockSettingsViewModel.blendColorWithTone(nextSeed(), /* colorTone= */ 45.0)
+        }
+    }
+
+    @Test
+    fun colorOption_getJsonPackages() {
+        val builder = ColorOptionImpl.Builder()
+        builder.title = "benchmark"
+        builder.source = COLOR_SOURCE_HOME
+        builder.seedColor = Color.BLUE
+        builder.type = ColorType.WALLPAPER_COLOR
+        builder.lightColors = intArrayOf(Color.RED, Color.GREEN, Color.BLUE, Color.BLACK)
+        builder.darkColors = intArrayOf(Color.WHITE, Color.GRAY, Color.CYAN, Color.MAGENTA)
+        builder.addOverlayPackage(OVERLAY_CATEGORY_SYSTEM_PALETTE, "#FF0000FF")
+        builder.addOverlayPackage(OVERLAY_CATEGORY_COLOR, "#FF0000FF")
+        val colorOption = builder.build()
+
+        measure("ColorOption.getJsonPackages") {
+            colorOption.getJsonPackages(/* insertTimestamp= */ false)
+        }
+    }
+
+    private fun measure(name: String, operation: () -> Any?) {
+        val result = MicroBenchmark.run(name, operation = operation)
+        assertThat(result.operations).isGreaterThan(0L)
+    }
+
+    private fun createMaterialColorsGenerator(): MaterialColorsGenerator {
+        return MaterialColorsGenerator(
+            context,
+            ThemeOverlaySettingsRepository(context.contentResolver),
+            Dispatchers.Default,
+        )
+    }
+
+    private fun seed(colorInt: Int): ColorProvider.SeedColor {
+        return ColorProvider.SeedColor(
+            colorInt = colorInt,
+            index = 0,
+            isDefault = false,
+            source = COLOR_SOURCE_HOME,
+        )
+    }
+
+    /** Returns seeds from a cycle longer than any of the color caches. */
+    private fun nextSeed(): Int {
+        seedIndex = (seedIndex + 1) % SEED_CYCLE_LENGTH
+        return Color.HSVToColor(floatArrayOf(seedIndex * 360f / SEED_CYCLE_LENGTH, 0.7f, 0.8f))
+    }
+
+    companion object {
+        private const val SEED_CYCLE_LENGTH = 512
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.benchmark
+
+import android.util.Log
+import java.lang.management.ManagementFactory
+
+/**
+ * A small JMH-style harness: it runs an operation for a few warmup iterations, then for a few
+ * timed measurement iterations, and reports throughput, average time and allocated bytes per
+ * operation.
+ *
+ * Results are logged under the [TAG] tag. Allocation is measured with
+ * [com.sun.management.ThreadMXBean] and reported as -1 on JVMs without it.
+ */
+object MicroBenchmark {
+
+    const val TAG = "MicroBenchmark"
+
+    /** The measurements of one benchmark. */
+    data class Result(
+        val name: String,
+        val operations: Long,
+        val opsPerSecond: Double,
+        val nanosPerOp: Double,
+        val bytesPerOp: Double,
+    ) {
+        override fun toString(): String {
+            return String.format(
+                "%-48s %14.1f ops/s %12.1f ns/op %12.1f B/op",
+                name,
+                opsPerSecond,
+                nanosPerOp,
+                bytesPerOp,
+            )
+        }
+    }
+
+    /** Keeps results alive so that the JIT cannot eliminate the measured work. */
+    @Volatile private var sink: Int = 0
+
+    private val threadMXBean =
+        ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+
+    /**
+     * Measures [operation] and logs the result.
+     *
+     * @param warmupIterations iterations run before measuring, to let the JIT compile the code
+     * @param measurementIterations iterations whose results are aggregated into the result
+     * @param iterationMillis how long each iteration calls [operation] for
+     */
+    fun run(
+        name: String,
+        warmupIterations: Int = 3,
+        measurementIterations: Int = 5,
+        iterationMillis: Long = 200,
+        operation: () -> Any?,
+    ): Result {
+        repeat(warmupIterations) { runIteration(iterationMillis, operation) }
+
+        var operations = 0L
+        var nanos = 0L
+        var bytes = 0L
+        repeat(measurementIterations) {
+            val startBytes = allocatedBytes()
+            val startNanos = System.nanoTime()
+            operations += runIteration(iterationMillis, operation)
+            nanos += System.nanoTime() - startNanos
+            bytes += allocatedBytes() - startBytes
+        }
+
+        val result =
+            Result(
+                name = name,
+                operations = operations,
+                opsPerSecond = operations * 1e9 / nanos,
+                nanosPerOp = nanos.toDouble() / operations,
+                bytesPerOp = if (threadMXBean == null) -1.0 else bytes.toDouble() / operations,
+            )
+        Log.i(TAG, result.toString())
+        return result
+    }
+
+    private fun runIteration(iterationMillis: Long, operation: () -> Any?): Long {
+        val deadline = System.nanoTime() + iterationMillis * 1_000_000
+        var operations = 0L
+        var hash = 0
+        do {
+            hash = hash xor operation().hashCode()
+            operations++
+        } while (System.nanoTime() < deadline)
+        sink = sink xor hash
+        return operations
+    }
+
+    private fun allocatedBytes(): Long {
+        return threadMXBean?.getThreadAllocatedBytes(Thread.currentThread().id) ?: 0L
+    }
+}
@@ -18,6 +18,9 @@ package com.android.customization.model.grid
 
 import javax.inject.Inject
 import javax.inject.Singleton
+import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.MutableSharedFlow
+import kotlinx.coroutines.flow.asSharedFlow
 
 @Singleton
 class FakeShapeGridManager @Inject constructor() : ShapeGridManager {
@@ -26,14 +29,60 @@ class FakeShapeGridManager @Inject constructor() : ShapeGridManager {
 
     private var shapeOptions: List<ShapeOptionModel>? = DEFAULT_SHAPE_OPTION_LIST
 
+    /** When true, applying is rejected like a launcher that updated nothing. */
+    var isApplyRejected = false
+
+    /**
+     * When true, applied options are only listed by [publishDeferredApply], like a launcher that
+     * is still reloading its workspace.
+     */
+    var isApplyDeferred = false
+    private var deferredApply: Pair<String, String>? = null
+
+    private val _shapeGridChanges = MutableSharedFlow<Unit>(extraBufferCapacity = 1)
+
     override suspend fun getGridOptions(): List<GridOptionModel>? = gridOptions
 
     override suspend fun getShapeOptions(): List<ShapeOptionModel>? = shapeOptions
 
+    override suspend fun getShapeGridOptions(): ShapeGridOptionsModel =
+        ShapeGridOptionsModel(shapeOptions = shapeOptions, gridOptions = gridOptions)
+
     override fun applyShapeGridOption(shapeKey: String, gridKey: String): Int {
+        if (isApplyRejected) {
+            return 0
+        }
+        if (isApplyDeferred) {
+            deferredApply = shapeKey to gridKey
+        } else {
+            select(shapeKey, gridKey)
+        }
+        return 1
+    }
+
+    override val shapeGridChanges: Flow<Unit> = _shapeGridChanges.asSharedFlow()
+
+    /** Reports a change of the launcher's options, without changing them. */
+    fun notifyShapeGridChanged() {
+        _shapeGridChanges.tryEmit(Unit)
+    }
+
+    /** Replaces the listed grid options, e.g. with renamed ones, and reports the change. */
+    fun setGridOptions(options: List<GridOptionModel>?) {
+        gridOptions = options
+        notifyShapeGridChanged()
+    }
+
+    /** Lists the options deferred by [isApplyDeferred] as current and reports the change. */
+    fun publishDeferredApply() {
+        deferredApply?.let { (shapeKey, gridKey) -> select(shapeKey, gridKey) }
+        deferredApply = null
+        notifyShapeGridChanged()
+    }
+
+    private fun select(shapeKey: String, gridKey: String) {
         shapeOptions = shapeOptions?.map { it.copy(isCurrent = it.key == shapeKey) }
         gridOptions = gridOptions?.map { it.copy(isCurrent = it.key == gridKey) }
-        return 0
     }
 
     companion object {
@@ -5,6 +5,8 @@ import android.content.Context
 import android.content.res.Resources
 import androidx.activity.ComponentActivity
 import com.android.customization.model.color.WallpaperColorResources
+import com.android.customization.model.grid.LauncherGridOptionsSource
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository
 import com.android.customization.module.CustomizationInjector
 import com.android.customization.module.CustomizationPreferences
 import com.android.customization.module.logging.ThemesUserEventLogger
@@ -44,6 +46,8 @@ constructor(
     prefs: WallpaperPreferences,
     private val fakeWallpaperCategoryWrapper: WallpaperCategoryWrapper,
     private val testStatusNotifier: TestPackageStatusNotifier,
+    private val themeOverlaySettingsRepository: ThemeOverlaySettingsRepository,
+    private val launcherGridOptionsSource: LauncherGridOptionsSource,
 ) :
     TestInjector(
         themesUserEventLogger,
@@ -85,7 +89,6 @@ constructor(
 
     override fun getClockCarouselViewModelFactory(
         interactor: ClockPickerInteractor,
-        clockViewFactory: ClockViewFactory,
         resources: Resources,
     ): ClockCarouselViewModel.Factory {
         throw UnsupportedOperationException("not implemented")
@@ -103,6 +106,14 @@ constructor(
         throw UnsupportedOperationException("not implemented")
     }
 
+    override fun getThemeOverlaySettingsRepository(): ThemeOverlaySettingsRepository {
+        return themeOverlaySettingsRepository
+    }
+
+    override fun getLauncherGridOptionsSource(): LauncherGridOptionsSource {
+        return launcherGridOptionsSource
+    }
+
     /////////////////
     // TestInjector overrides
     /////////////////
@@ -19,6 +19,7 @@ import android.content.Context
 import androidx.test.core.app.ApplicationProvider
 import com.android.customization.model.color.ColorCustomizationManager
 import com.android.customization.model.theme.OverlayManagerCompat
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository
 import com.android.customization.module.CustomizationInjector
 import com.android.customization.module.CustomizationPreferences
 import com.android.customization.module.logging.TestThemesUserEventLogger
@@ -191,9 +192,12 @@ abstract class ThemePickerTestModule {
 
         @Provides
         @Singleton
-        fun provideColorCustomizationManager(): ColorCustomizationManager {
-            return ColorCustomizationManager.getInstance(
+        fun provideColorCustomizationManager(
+            overlaySettingsRepository: ThemeOverlaySettingsRepository
+        ): ColorCustomizationManager {
+            return ColorCustomizationManager.create(
                 ApplicationProvider.getApplicationContext(),
+                overlaySettingsRepository,
                 OverlayManagerCompat(ApplicationProvider.getApplicationContext()),
             )
         }
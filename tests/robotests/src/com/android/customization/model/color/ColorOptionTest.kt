@@ -212,4 +212,37 @@ class ColorOptionTest {
         `when`(manager.currentOverlays).thenReturn(settings)
         assertThat(colorOption.isActive(manager)).isFalse()
     }
+
+    @Test
+    fun activeColorSelection_matchesIsActive() {
+        val colorOption = setUpWallpaperColorOption(false)
+        `when`(manager.currentColorSource).thenReturn("some_source")
+        val otherSource = setUpWallpaperColorOption(false, "some_other_source")
+
+        val selection = ActiveColorSelection.from(manager)
+
+        assertThat(selection.matches(colorOption)).isEqualTo(colorOption.isActive(manager))
+        assertThat(selection.matches(colorOption)).isTrue()
+        assertThat(selection.matches(otherSource)).isEqualTo(otherSource.isActive(manager))
+        assertThat(selection.matches(otherSource)).isFalse()
+    }
+
+    @Test
+    fun activeColorSelection_default_nonEmptyOverlays_doesNotMatch() {
+        val colorOption = setUpWallpaperColorOption(true)
+        val settings = mapOf(OVERLAY_CATEGORY_SYSTEM_PALETTE to "fake_color")
+        `when`(manager.storedOverlays).thenReturn(JSONObject(settings).toString())
+        `when`(manager.currentOverlays).thenReturn(settings)
+
+        assertThat(ActiveColorSelection.from(manager).matches(colorOption)).isFalse()
+    }
+
+    @Test
+    fun packagesKey_ignoresMapOrdering() {
+        val first = linkedMapOf("package" to "value", "otherPackage" to "otherValue")
+        val second = linkedMapOf("otherPackage" to "otherValue", "package" to "value")
+
+        assertThat(ColorOption.buildPackagesKey(first))
+            .isEqualTo(ColorOption.buildPackagesKey(second))
+    }
 }
@@ -0,0 +1,148 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.model.color
+
+import android.app.WallpaperColors
+import android.content.Context
+import android.graphics.Color
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.SmallTest
+import com.android.customization.model.ResourceConstants.OVERLAY_CATEGORY_SYSTEM_PALETTE
+import com.android.customization.model.color.ColorOptionsProvider.COLOR_SOURCE_HOME
+import com.android.customization.picker.color.shared.model.ColorType
+import com.android.systemui.monet.Style
+import com.google.common.truth.Truth.assertThat
+import java.io.File
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.runTest
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+
+@OptIn(ExperimentalCoroutinesApi::class)
+@SmallTest
+@RunWith(RobolectricTestRunner::class)
+class ColorOptionsDiskCacheTest {
+
+    private val testDispatcher = StandardTestDispatcher()
+    private val homeColors =
+        WallpaperColors(Color.valueOf(Color.RED), Color.valueOf(Color.GREEN), null)
+    private val lockColors =
+        WallpaperColors(Color.valueOf(Color.BLUE), Color.valueOf(Color.YELLOW), null)
+
+    private lateinit var context: Context
+    private lateinit var underTest: ColorOptionsDiskCache
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        underTest = ColorOptionsDiskCache(context, testDispatcher)
+    }
+
+    @Test
+    fun read_nothingWritten_returnsNull() =
+        runTest(testDispatcher) { assertThat(underTest.read(homeColors, lockColors)).isNull() }
+
+    @Test
+    fun read_afterWrite_returnsEquivalentOptions() =
+        runTest(testDispatcher) {
+            val option = buildOption()
+
+            underTest.write(homeColors, lockColors, listOf(option))
+            val cached = underTest.read(homeColors, lockColors)
+
+            assertThat(cached).hasSize(1)
+            val cachedOption = cached!!.first()
+            assertThat(cachedOption.title).isEqualTo(option.title)
+            assertThat(cachedOption.source).isEqualTo(option.source)
+            assertThat(cachedOption.seedColor).isEqualTo(option.seedColor)
+            assertThat(cachedOption.style).isEqualTo(option.style)
+            assertThat(cachedOption.index).isEqualTo(option.index)
+            assertThat(cachedOption.type).isEqualTo(option.type)
+            assertThat(cachedOption.previewInfo.lightColors)
+                .isEqualTo(option.previewInfo.lightColors)
+            assertThat(cachedOption.previewInfo.darkColors)
+                .isEqualTo(option.previewInfo.darkColors)
+            assertThat(cachedOption.packagesByCategory).isEqualTo(option.packagesByCategory)
+            assertThat(cachedOption.isEquivalent(option)).isTrue()
+        }
+
+    @Test
+    fun read_differentWallpaperColors_returnsNull() =
+        runTest(testDispatcher) {
+            underTest.write(homeColors, lockColors, listOf(buildOption()))
+
+            assertThat(underTest.read(lockColors, homeColors)).isNull()
+        }
+
+    @Test
+    fun read_afterWrite_keepsOptionsOfEveryType() =
+        runTest(testDispatcher) {
+            underTest.write(
+                homeColors,
+                lockColors,
+                listOf(buildOption(), buildOption(ColorType.PRESET_COLOR)),
+            )
+
+            assertThat(underTest.read(homeColors, lockColors)?.map { it.type })
+                .containsExactly(ColorType.WALLPAPER_COLOR, ColorType.PRESET_COLOR)
+                .inOrder()
+        }
+
+    @Test
+    fun read_nightModeChanged_returnsNull() =
+        runTest(testDispatcher) {
+            underTest.write(homeColors, lockColors, listOf(buildOption()))
+
+            RuntimeEnvironment.setQualifiers("+night")
+
+            assertThat(underTest.read(homeColors, lockColors)).isNull()
+        }
+
+    @Test
+    fun read_olderFormatFileExists_deletesIt() =
+        runTest(testDispatcher) {
+            val olderFile = File(context.noBackupFilesDir, "wallpaper_color_options_v1.bin")
+            olderFile.writeBytes(byteArrayOf(1, 2, 3))
+
+            underTest.read(homeColors, lockColors)
+
+            assertThat(olderFile.exists()).isFalse()
+        }
+
+    @Test
+    fun contentEquals_sameOptions_isTrue() {
+        assertThat(underTest.contentEquals(listOf(buildOption()), listOf(buildOption()))).isTrue()
+    }
+
+    @Test
+    fun contentEquals_differentOptions_isFalse() {
+        assertThat(
+                underTest.contentEquals(
+                    listOf(buildOption()),
+                    listOf(buildOption(ColorType.PRESET_COLOR)),
+                )
+            )
+            .isFalse()
+    }
+
+    private fun buildOption(type: ColorType = ColorType.WALLPAPER_COLOR): ColorOptionImpl {
+        val builder = ColorOptionImpl.Builder()
+        builder.title = "fake color"
+        builder.source = COLOR_SOURCE_HOME
+        builder.seedColor = Color.RED
+        builder.style = Style.VIBRANT
+        builder.index = 2
+        builder.type = type
+        builder.lightColors = intArrayOf(Color.RED, Color.GREEN, Color.BLUE, Color.BLACK)
+        builder.darkColors = intArrayOf(Color.WHITE, Color.GRAY, Color.CYAN, Color.MAGENTA)
+        builder.addOverlayPackage(OVERLAY_CATEGORY_SYSTEM_PALETTE, "#FFFF0000")
+        return builder.build()
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.model.color
+
+import android.graphics.Color
+import com.android.systemui.monet.Style
+import com.google.common.truth.Truth.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+/** Tests of {@link ColorSchemeCache}. */
+@RunWith(RobolectricTestRunner::class)
+class ColorSchemeCacheTest {
+
+    @Before
+    fun setUp() {
+        ColorSchemeCache.clear()
+    }
+
+    @Test
+    fun get_sameKey_returnsSameInstance() {
+        val misses = ColorSchemeCache.missCount()
+        val hits = ColorSchemeCache.hitCount()
+
+        val first = ColorSchemeCache.get(Color.RED, /* darkTheme= */ false, Style.VIBRANT)
+        val second = ColorSchemeCache.get(Color.RED, /* darkTheme= */ false, Style.VIBRANT)
+
+        assertThat(second).isSameInstanceAs(first)
+        assertThat(ColorSchemeCache.missCount() - misses).isEqualTo(1)
+        assertThat(ColorSchemeCache.hitCount() - hits).isEqualTo(1)
+    }
+
+    @Test
+    fun get_differentKeys_returnsDistinctSchemes() {
+        val light = ColorSchemeCache.get(Color.BLUE, /* darkTheme= */ false, Style.TONAL_SPOT)
+        val dark = ColorSchemeCache.get(Color.BLUE, /* darkTheme= */ true, Style.TONAL_SPOT)
+        val spritz = ColorSchemeCache.get(Color.BLUE, /* darkTheme= */ false, Style.SPRITZ)
+
+        assertThat(dark).isNotSameInstanceAs(light)
+        assertThat(spritz).isNotSameInstanceAs(light)
+        assertThat(spritz.style).isEqualTo(Style.SPRITZ)
+    }
+
+    @Test
+    fun get_defaultStyle_isTonalSpot() {
+        val scheme = ColorSchemeCache.get(Color.GREEN, /* darkTheme= */ true)
+
+        assertThat(scheme.style).isEqualTo(Style.TONAL_SPOT)
+        assertThat(ColorSchemeCache.get(Color.GREEN, /* darkTheme= */ true, Style.TONAL_SPOT))
+            .isSameInstanceAs(scheme)
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.model.grid
+
+import android.content.ContentProvider
+import android.content.ContentValues
+import android.content.Context
+import android.database.Cursor
+import android.database.MatrixCursor
+import android.net.Uri
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.SmallTest
+import com.android.wallpaper.util.PreviewUtils
+import com.google.common.truth.Truth.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.ArgumentMatchers.anyString
+import org.mockito.Mockito.`when`
+import org.mockito.Mockito.mock
+import org.robolectric.Robolectric
+import org.robolectric.RobolectricTestRunner
+
+@SmallTest
+@RunWith(RobolectricTestRunner::class)
+class LauncherGridOptionsSourceTest {
+
+    private lateinit var context: Context
+    private lateinit var launcher: FakeGridProvider
+    private lateinit var underTest: LauncherGridOptionsSource
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        launcher =
+            Robolectric.buildContentProvider(FakeGridProvider::class.java).create(AUTHORITY).get()
+        val previewUtils = mock(PreviewUtils::class.java)
+        `when`(previewUtils.supportsPreview()).thenReturn(true)
+        `when`(previewUtils.getUri(anyString())).thenAnswer { uri(it.getArgument(0)) }
+        underTest = LauncherGridOptionsSource(context, previewUtils)
+    }
+
+    @Test
+    fun getGridOptions_queriesLauncherOnce() {
+        underTest.getGridOptions()
+        val options = underTest.getGridOptions()
+
+        assertThat(launcher.queryCount).isEqualTo(1)
+        assertThat(options)
+            .containsExactly(
+                LauncherGridOptionsSource.GridOptionRow(
+                    name = "normal",
+                    title = "5x5",
+                    rows = 5,
+                    cols = 5,
+                    previewCount = 1,
+                    isCurrent = true,
+                ),
+                LauncherGridOptionsSource.GridOptionRow(
+                    name = "practical",
+                    title = "4x5",
+                    rows = 5,
+                    cols = 4,
+                    previewCount = 1,
+                    isCurrent = false,
+                ),
+            )
+            .inOrder()
+    }
+
+    @Test
+    fun invalidate_queriesLauncherAgain() {
+        underTest.getGridOptions()
+
+        underTest.invalidate()
+        underTest.getGridOptions()
+
+        assertThat(launcher.queryCount).isEqualTo(2)
+    }
+
+    @Test
+    fun launcherGridChange_notifiesListenersWithNewOptions() {
+        underTest.getGridOptions()
+        var optionsOnChange: List<LauncherGridOptionsSource.GridOptionRow>? = null
+        underTest.addListener { optionsOnChange = underTest.getGridOptions() }
+
+        launcher.currentGrid = "practical"
+        context.contentResolver.notifyChange(uri("default_grid"), null)
+
+        assertThat(launcher.queryCount).isEqualTo(2)
+        assertThat(optionsOnChange?.single { it.isCurrent }?.name).isEqualTo("practical")
+    }
+
+    class FakeGridProvider : ContentProvider() {
+
+        var queryCount = 0
+        var currentGrid = "normal"
+
+        override fun onCreate(): Boolean = true
+
+        override fun query(
+            uri: Uri,
+            projection: Array<out String>?,
+            selection: String?,
+            selectionArgs: Array<out String>?,
+            sortOrder: String?,
+        ): Cursor {
+            queryCount++
+            return MatrixCursor(
+                    arrayOf("name", "grid_title", "rows", "cols", "preview_count", "is_default")
+                )
+                .apply {
+                    addRow(arrayOf("normal", "5x5", 5, 5, 1, isDefault("normal")))
+                    addRow(arrayOf("practical", "4x5", 5, 4, 1, isDefault("practical")))
+                }
+        }
+
+        private fun isDefault(name: String): String = (name == currentGrid).toString()
+
+        override fun getType(uri: Uri): String? = null
+
+        override fun insert(uri: Uri, values: ContentValues?): Uri? = null
+
+        override fun delete(uri: Uri, selection: String?, selectionArgs: Array<out String>?): Int =
+            0
+
+        override fun update(
+            uri: Uri,
+            values: ContentValues?,
+            selection: String?,
+            selectionArgs: Array<out String>?,
+        ): Int = 0
+    }
+
+    companion object {
+        private const val AUTHORITY = "com.android.customization.test.grid"
+
+        private fun uri(path: String): Uri =
+            Uri.Builder().scheme("content").authority(AUTHORITY).appendPath(path).build()
+    }
+}
@@ -61,41 +61,55 @@ class FakeGridRepository(
 
     override fun isSelectedOptionApplied() = false
 
+    /**
+     * @param hasOwnSelection whether the new options report and change a selection of their own
+     *   instead of the one shared with the previous options, so that a test can tell whether a
+     *   model of the previous options is still in use
+     */
     fun setOptions(
         count: Int,
         selectedIndex: Int = 0,
+        namePrefix: String = DEFAULT_NAME_PREFIX,
+        hasOwnSelection: Boolean = false,
     ) {
-        options = createOptions(count, selectedIndex)
+        options = createOptions(count, selectedIndex, namePrefix, hasOwnSelection)
         _optionChanges.tryEmit(Unit)
     }
 
     private fun createOptions(
         count: Int,
         selectedIndex: Int = 0,
+        namePrefix: String = DEFAULT_NAME_PREFIX,
+        hasOwnSelection: Boolean = false,
     ): GridOptionItemsModel {
-        selectedOptionIndex.value = selectedIndex
+        val selection = if (hasOwnSelection) MutableStateFlow(0) else selectedOptionIndex
+        selection.value = selectedIndex
         return GridOptionItemsModel.Loaded(
             options =
                 buildList {
                     repeat(times = count) { index ->
                         add(
                             GridOptionItemModel(
-                                name = "option_$index",
+                                name = "$namePrefix$index",
                                 cols = 4,
                                 rows = index * 2,
                                 isSelected =
-                                    selectedOptionIndex
+                                    selection
                                         .map { it == index }
                                         .stateIn(
                                             scope = scope,
                                             started = SharingStarted.Eagerly,
                                             initialValue = false,
                                         ),
-                                onSelected = { selectedOptionIndex.value = index },
+                                onSelected = { selection.value = index },
                             )
                         )
                     }
                 }
         )
     }
+
+    companion object {
+        private const val DEFAULT_NAME_PREFIX = "option_"
+    }
 }
@@ -24,42 +24,53 @@ import com.android.customization.picker.grid.domain.interactor.GridInteractor
 import com.android.customization.picker.grid.domain.interactor.GridSnapshotRestorer
 import com.android.customization.picker.grid.ui.viewmodel.GridIconViewModel
 import com.android.customization.picker.grid.ui.viewmodel.GridScreenViewModel
+import com.android.wallpaper.picker.common.text.ui.viewmodel.Text
 import com.android.wallpaper.picker.option.ui.viewmodel.OptionItemViewModel
 import com.android.wallpaper.testing.FakeSnapshotStore
 import com.android.wallpaper.testing.collectLastValue
 import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.test.StandardTestDispatcher
 import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.resetMain
+import kotlinx.coroutines.test.runCurrent
 import kotlinx.coroutines.test.runTest
+import kotlinx.coroutines.test.setMain
+import org.junit.After
 import org.junit.Before
 import org.junit.Ignore
 import org.junit.Test
 import org.junit.runner.RunWith
-import org.junit.runners.JUnit4
+import org.robolectric.RobolectricTestRunner
 
 @OptIn(ExperimentalCoroutinesApi::class)
 @SmallTest
-@RunWith(JUnit4::class)
+@RunWith(RobolectricTestRunner::class)
 class GridScreenViewModelTest {
 
     private lateinit var underTest: GridScreenViewModel
     private lateinit var testScope: TestScope
+    private lateinit var repository: FakeGridRepository
     private lateinit var interactor: GridInteractor
     private lateinit var store: FakeSnapshotStore
 
     @Before
     fun setUp() {
-        testScope = TestScope()
+        val testDispatcher = StandardTestDispatcher()
+        Dispatchers.setMain(testDispatcher)
+        testScope = TestScope(testDispatcher)
         store = FakeSnapshotStore()
+        repository =
+            FakeGridRepository(
+                scope = testScope.backgroundScope,
+                initialOptionCount = 4,
+            )
         interactor =
             GridInteractor(
                 applicationScope = testScope.backgroundScope,
-                repository =
-                    FakeGridRepository(
-                        scope = testScope.backgroundScope,
-                        initialOptionCount = 4,
-                    ),
+                repository = repository,
                 snapshotRestorer = {
                     GridSnapshotRestorer(
                             interactor = interactor,
@@ -75,6 +86,72 @@ class GridScreenViewModelTest {
             )
     }
 
+    @After
+    fun tearDown() {
+        Dispatchers.resetMain()
+    }
+
+    @Test
+    fun newOptions_reusedItemsFollowTheNewSelectionAndClickTarget() =
+        testScope.runTest {
+            val optionItems = collectLastValue(underTest.optionItems)
+            val oldItems = checkNotNull(optionItems())
+
+            repository.setOptions(count = 4, selectedIndex = 2, hasOwnSelection = true)
+            runCurrent()
+            val newItems = checkNotNull(optionItems())
+
+            assertThat(newItems).hasSize(4)
+            newItems.zip(oldItems).forEach { (newItem, oldItem) ->
+                assertThat(newItem).isSameInstanceAs(oldItem)
+            }
+            assertThat(getSelectedIndex(newItems)).isEqualTo(2)
+
+            // Only the new options' selection changes, so this fails if the click selects an
+            // option of the old ones.
+            checkNotNull(getOnClick(newItems[1])).invoke()
+            runCurrent()
+
+            assertThat(getSelectedIndex(newItems)).isEqualTo(1)
+        }
+
+    @Test
+    fun removedOptions_dropTheirItems() =
+        testScope.runTest {
+            val optionItems = collectLastValue(underTest.optionItems)
+            val oldItems = checkNotNull(optionItems())
+
+            repository.setOptions(count = 2)
+            runCurrent()
+
+            assertThat(optionItems()).hasSize(2)
+
+            repository.setOptions(count = 4)
+            runCurrent()
+            val newItems = checkNotNull(optionItems())
+
+            assertThat(newItems[0]).isSameInstanceAs(oldItems[0])
+            assertThat(newItems[1]).isSameInstanceAs(oldItems[1])
+            assertThat(newItems[2]).isNotSameInstanceAs(oldItems[2])
+            assertThat(newItems[3]).isNotSameInstanceAs(oldItems[3])
+        }
+
+    @Test
+    fun renamedOptions_getNewItems() =
+        testScope.runTest {
+            val optionItems = collectLastValue(underTest.optionItems)
+            val oldItems = checkNotNull(optionItems())
+
+            repository.setOptions(count = 4, namePrefix = "renamed_")
+            runCurrent()
+            val newItems = checkNotNull(optionItems())
+
+            newItems.forEachIndexed { index, newItem ->
+                assertThat(newItem).isNotSameInstanceAs(oldItems[index])
+                assertThat(newItem.text).isEqualTo(Text.Loaded("renamed_$index"))
+            }
+        }
+
     @Test
     @Ignore("b/270371382")
     fun clickOnItem_itGetsSelected() =
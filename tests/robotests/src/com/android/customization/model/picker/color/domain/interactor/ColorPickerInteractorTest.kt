@@ -79,6 +79,19 @@ class ColorPickerInteractorTest {
         assertThat(presetColorOptionModelAfter?.isSelected).isTrue()
     }
 
+    @Test
+    fun selectedColorOptionKey_followsSelection() = runTest {
+        val colorOptions = collectLastValue(underTest.colorOptions)
+        val selectedKey = collectLastValue(underTest.selectedColorOptionKey)
+        assertThat(selectedKey())
+            .isEqualTo(colorOptions()?.get(ColorType.WALLPAPER_COLOR)?.get(0)?.key)
+
+        val presetColorOptionModel = colorOptions()?.get(ColorType.PRESET_COLOR)?.get(1)
+        presetColorOptionModel?.let { underTest.select(colorOptionModel = it) }
+
+        assertThat(selectedKey()).isEqualTo(presetColorOptionModel?.key)
+    }
+
     @Test
     fun snapshotRestorer_updatesSnapshot() = runTest {
         val colorOptions = collectLastValue(underTest.colorOptions)
@@ -0,0 +1,132 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.model.theme
+
+import android.content.Context
+import android.provider.Settings
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.SmallTest
+import com.android.customization.model.ResourceConstants
+import com.android.customization.model.ResourceConstants.OVERLAY_CATEGORY_FONT
+import com.android.customization.model.ResourceConstants.OVERLAY_CATEGORY_SHAPE
+import com.android.customization.model.ResourceConstants.OVERLAY_CATEGORY_SYSTEM_PALETTE
+import com.google.common.truth.Truth.assertThat
+import org.json.JSONObject
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@SmallTest
+@RunWith(RobolectricTestRunner::class)
+class ThemeOverlaySettingsRepositoryTest {
+
+    private lateinit var context: Context
+    private lateinit var underTest: ThemeOverlaySettingsRepository
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        Settings.Secure.putString(
+            context.contentResolver,
+            ResourceConstants.THEME_SETTING,
+            JSONObject(mapOf(OVERLAY_CATEGORY_SYSTEM_PALETTE to "aabbcc")).toString(),
+        )
+        underTest = ThemeOverlaySettingsRepository(context.contentResolver)
+    }
+
+    @Test
+    fun getOverlays_parsesStoredSetting() {
+        assertThat(underTest.getOverlays())
+            .containsExactly(OVERLAY_CATEGORY_SYSTEM_PALETTE, "aabbcc")
+    }
+
+    @Test
+    fun getOverlays_invalidJson_returnsEmptyMap() {
+        underTest.put("not json")
+
+        assertThat(underTest.getSerialized()).isEqualTo("not json")
+        assertThat(underTest.getOverlays()).isEmpty()
+    }
+
+    @Test
+    fun put_updatesSnapshotAndSetting() {
+        val json = JSONObject(mapOf(OVERLAY_CATEGORY_SYSTEM_PALETTE to "112233")).toString()
+
+        assertThat(underTest.put(json)).isTrue()
+
+        assertThat(underTest.snapshot.value.serialized).isEqualTo(json)
+        assertThat(underTest.getOverlays()[OVERLAY_CATEGORY_SYSTEM_PALETTE]).isEqualTo("112233")
+        assertThat(
+                Settings.Secure.getString(context.contentResolver, ResourceConstants.THEME_SETTING)
+            )
+            .isEqualTo(json)
+    }
+
+    @Test
+    fun put_notifiesListenersOnlyOnChange() {
+        val received = mutableListOf<String?>()
+        underTest.addListener { received.add(it.serialized) }
+        val json = JSONObject(mapOf(OVERLAY_CATEGORY_SYSTEM_PALETTE to "112233")).toString()
+
+        underTest.put(json)
+        underTest.put(json)
+
+        assertThat(received).containsExactly(json)
+    }
+
+    @Test
+    fun batchCommit_mergesStagedCategoriesIntoOneWrite() {
+        val received = mutableListOf<String?>()
+        underTest.addListener { received.add(it.serialized) }
+
+        val committed =
+            underTest
+                .newBatch()
+                .put(OVERLAY_CATEGORY_FONT, "font.package")
+                .put(OVERLAY_CATEGORY_SHAPE, "shape.package")
+                .remove(OVERLAY_CATEGORY_SYSTEM_PALETTE)
+                .commit()
+
+        assertThat(committed).isTrue()
+        assertThat(received).hasSize(1)
+        assertThat(underTest.getOverlays())
+            .containsExactly(
+                OVERLAY_CATEGORY_FONT,
+                "font.package",
+                OVERLAY_CATEGORY_SHAPE,
+                "shape.package",
+            )
+    }
+
+    @Test
+    fun batchCommit_keepsCategoriesWrittenByOthers() {
+        Settings.Secure.putString(
+            context.contentResolver,
+            ResourceConstants.THEME_SETTING,
+            JSONObject(mapOf(OVERLAY_CATEGORY_SYSTEM_PALETTE to "ddeeff")).toString(),
+        )
+
+        underTest.newBatch().put(OVERLAY_CATEGORY_FONT, "font.package").commit()
+
+        assertThat(underTest.getOverlays())
+            .containsExactly(
+                OVERLAY_CATEGORY_SYSTEM_PALETTE,
+                "ddeeff",
+                OVERLAY_CATEGORY_FONT,
+                "font.package",
+            )
+    }
+
+    @Test
+    fun batchCommit_invalidStoredJson_fails() {
+        underTest.put("not json")
+
+        assertThat(underTest.newBatch().put(OVERLAY_CATEGORY_FONT, "font.package").commit())
+            .isFalse()
+        assertThat(underTest.getSerialized()).isEqualTo("not json")
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.picker.clock.data.repository
+
+import android.graphics.Color
+import androidx.test.filters.SmallTest
+import com.android.customization.picker.clock.shared.ClockSize
+import com.android.customization.picker.clock.shared.model.ClockSnapshotModel
+import com.android.systemui.plugins.clocks.ClockFontAxisSetting
+import com.android.systemui.plugins.clocks.ClockSettings
+import com.android.systemui.shared.clocks.ClockRegistry
+import com.android.systemui.shared.settings.data.repository.FakeSecureSettingsRepository
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.runTest
+import org.json.JSONObject
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.kotlin.any
+import org.mockito.kotlin.argumentCaptor
+import org.mockito.kotlin.mock
+import org.mockito.kotlin.never
+import org.mockito.kotlin.times
+import org.mockito.kotlin.verify
+import org.robolectric.RobolectricTestRunner
+
+@OptIn(ExperimentalCoroutinesApi::class)
+@SmallTest
+@RunWith(RobolectricTestRunner::class)
+class ClockPickerRepositoryImplTest {
+
+    private val testDispatcher = StandardTestDispatcher()
+    private val testScope = TestScope(testDispatcher)
+    private lateinit var registry: ClockRegistry
+    private lateinit var underTest: ClockPickerRepositoryImpl
+
+    @Before
+    fun setUp() {
+        registry = mock()
+        underTest =
+            ClockPickerRepositoryImpl(
+                secureSettingsRepository = FakeSecureSettingsRepository(),
+                registry = registry,
+                mainScope = testScope.backgroundScope,
+                mainDispatcher = testDispatcher,
+            )
+    }
+
+    @Test
+    fun applyClockSettings_mutatesTheSettingsOnce() =
+        testScope.runTest {
+            underTest.applyClockSettings(
+                ClockSnapshotModel(
+                    clockId = CLOCK_ID,
+                    clockSize = ClockSize.SMALL,
+                    selectedColorId = COLOR_ID,
+                    colorToneProgress = COLOR_TONE_PROGRESS,
+                    seedColor = SEED_COLOR,
+                    axisSettings = AXIS_SETTINGS,
+                )
+            )
+
+            val newSettings = captureMutatedSettings(oldSettings())
+            assertThat(newSettings.clockId).isEqualTo(CLOCK_ID)
+            assertThat(newSettings.seedColor).isEqualTo(SEED_COLOR)
+            assertThat(newSettings.axes).isEqualTo(AXIS_SETTINGS)
+            assertThat(newSettings.metadata.getString(KEY_METADATA_SELECTED_COLOR_ID))
+                .isEqualTo(COLOR_ID)
+            assertThat(newSettings.metadata.getInt(KEY_METADATA_COLOR_TONE_PROGRESS))
+                .isEqualTo(COLOR_TONE_PROGRESS)
+        }
+
+    @Test
+    fun applyClockSettings_onlyClockId_keepsTheOtherSettings() =
+        testScope.runTest {
+            val oldSettings = oldSettings()
+
+            underTest.applyClockSettings(ClockSnapshotModel(clockId = CLOCK_ID))
+
+            val newSettings = captureMutatedSettings(oldSettings)
+            assertThat(newSettings.clockId).isEqualTo(CLOCK_ID)
+            assertThat(newSettings.seedColor).isEqualTo(oldSettings.seedColor)
+            assertThat(newSettings.axes).isEqualTo(oldSettings.axes)
+            assertThat(newSettings.metadata.toString()).isEqualTo(oldSettings.metadata.toString())
+        }
+
+    @Test
+    fun applyClockSettings_onlyClockSize_doesNotMutateTheSettings() =
+        testScope.runTest {
+            underTest.applyClockSettings(ClockSnapshotModel(clockSize = ClockSize.SMALL))
+
+            verify(registry, never()).mutateSetting(any())
+        }
+
+    /**
+     * Verifies that the registry settings were mutated exactly once and returns the result of that
+     * mutation applied to [oldSettings].
+     */
+    private fun captureMutatedSettings(oldSettings: ClockSettings): ClockSettings {
+        val mutator = argumentCaptor<(ClockSettings) -> ClockSettings>()
+        verify(registry, times(1)).mutateSetting(mutator.capture())
+        return mutator.firstValue(oldSettings)
+    }
+
+    private fun oldSettings(): ClockSettings {
+        return ClockSettings(
+                clockId = OLD_CLOCK_ID,
+                seedColor = Color.BLUE,
+                axes = listOf(ClockFontAxisSetting("wght", 400f)),
+            )
+            .apply {
+                metadata =
+                    JSONObject()
+                        .put(KEY_METADATA_SELECTED_COLOR_ID, "BLUE")
+                        .put(KEY_METADATA_COLOR_TONE_PROGRESS, 10)
+            }
+    }
+
+    companion object {
+        private const val KEY_METADATA_SELECTED_COLOR_ID = "metadataSelectedColorId"
+        private const val KEY_METADATA_COLOR_TONE_PROGRESS = "metadataColorToneProgress"
+        private const val OLD_CLOCK_ID = "old_clock"
+        private const val CLOCK_ID = "clock"
+        private const val COLOR_ID = "RED"
+        private const val COLOR_TONE_PROGRESS = 87
+        private const val SEED_COLOR = Color.RED
+        private val AXIS_SETTINGS = listOf(ClockFontAxisSetting("wght", 700f))
+    }
+}
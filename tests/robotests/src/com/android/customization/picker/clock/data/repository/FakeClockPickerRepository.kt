@@ -22,13 +22,14 @@ import androidx.annotation.IntRange
 import com.android.customization.picker.clock.data.repository.FakeClockPickerRepository.Companion.fakeClocks
 import com.android.customization.picker.clock.shared.ClockSize
 import com.android.customization.picker.clock.shared.model.ClockMetadataModel
+import com.android.customization.picker.clock.shared.model.ClockSnapshotModel
 import com.android.systemui.plugins.clocks.AxisType
 import com.android.systemui.plugins.clocks.ClockFontAxis
 import com.android.systemui.plugins.clocks.ClockFontAxisSetting
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.asStateFlow
-import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.update
 
 /** By default [FakeClockPickerRepository] uses [fakeClocks]. */
@@ -36,19 +37,19 @@ open class FakeClockPickerRepository(clocks: List<ClockMetadataModel> = fakeCloc
     ClockPickerRepository {
     override val allClocks: Flow<List<ClockMetadataModel>> = MutableStateFlow(clocks).asStateFlow()
 
-    private val selectedClockId = MutableStateFlow(fakeClocks[0].clockId)
-    @ColorInt private val selectedColorId = MutableStateFlow<String?>(null)
-    private val colorTone = MutableStateFlow(ClockMetadataModel.DEFAULT_COLOR_TONE_PROGRESS)
-    @ColorInt private val seedColor = MutableStateFlow<Int?>(null)
-    private val fontAxes = MutableStateFlow<List<ClockFontAxis>>(listOf(buildFakeAxis(0)))
+    /** Like the registry's settings, all of these change together in one write. */
+    private data class FakeClockSettings(
+        val clockId: String = fakeClocks[0].clockId,
+        val selectedColorId: String? = null,
+        val colorTone: Int = ClockMetadataModel.DEFAULT_COLOR_TONE_PROGRESS,
+        @ColorInt val seedColor: Int? = null,
+        val fontAxes: List<ClockFontAxis> = listOf(buildFakeAxis(0)),
+    )
+
+    private val settings = MutableStateFlow(FakeClockSettings())
     override val selectedClock: Flow<ClockMetadataModel> =
-        combine(selectedClockId, selectedColorId, colorTone, seedColor, fontAxes) {
-            selectedClockId,
-            selectedColor,
-            colorTone,
-            seedColor,
-            fontAxes ->
-            val selectedClock = fakeClocks.find { clock -> clock.clockId == selectedClockId }
+        settings.map { settings ->
+            val selectedClock = fakeClocks.find { clock -> clock.clockId == settings.clockId }
             checkNotNull(selectedClock)
             ClockMetadataModel(
                 clockId = selectedClock.clockId,
@@ -56,10 +57,10 @@ open class FakeClockPickerRepository(clocks: List<ClockMetadataModel> = fakeCloc
                 description = "description",
                 thumbnail = ColorDrawable(0),
                 isReactiveToTone = selectedClock.isReactiveToTone,
-                fontAxes = fontAxes,
-                selectedColorId = selectedColor,
-                colorToneProgress = colorTone,
-                seedColor = seedColor,
+                fontAxes = settings.fontAxes,
+                selectedColorId = settings.selectedColorId,
+                colorToneProgress = settings.colorTone,
+                seedColor = settings.seedColor,
             )
         }
 
@@ -67,7 +68,7 @@ open class FakeClockPickerRepository(clocks: List<ClockMetadataModel> = fakeCloc
     override val selectedClockSize: Flow<ClockSize> = _selectedClockSize.asStateFlow()
 
     override suspend fun setSelectedClock(clockId: String) {
-        selectedClockId.value = clockId
+        applyClockSettings(ClockSnapshotModel(clockId = clockId))
     }
 
     override suspend fun setClockColor(
@@ -75,9 +76,13 @@ open class FakeClockPickerRepository(clocks: List<ClockMetadataModel> = fakeCloc
         @IntRange(from = 0, to = 100) colorToneProgress: Int,
         @ColorInt seedColor: Int?,
     ) {
-        this.selectedColorId.value = selectedColorId
-        this.colorTone.value = colorToneProgress
-        this.seedColor.value = seedColor
+        applyClockSettings(
+            ClockSnapshotModel(
+                selectedColorId = selectedColorId,
+                colorToneProgress = colorToneProgress,
+                seedColor = seedColor,
+            )
+        )
     }
 
     override suspend fun setClockSize(size: ClockSize) {
@@ -85,7 +90,29 @@ open class FakeClockPickerRepository(clocks: List<ClockMetadataModel> = fakeCloc
     }
 
     override suspend fun setClockFontAxes(axisSettings: List<ClockFontAxisSetting>) {
-        fontAxes.update { fontAxes -> ClockFontAxis.merge(fontAxes, axisSettings) }
+        applyClockSettings(ClockSnapshotModel(axisSettings = axisSettings))
+    }
+
+    override suspend fun applyClockSettings(clockSettings: ClockSnapshotModel) {
+        clockSettings.clockSize?.let { setClockSize(it) }
+        val colorToneProgress = clockSettings.colorToneProgress
+        settings.update { settings ->
+            settings.copy(
+                clockId = clockSettings.clockId ?: settings.clockId,
+                selectedColorId =
+                    if (colorToneProgress != null) {
+                        clockSettings.selectedColorId
+                    } else {
+                        settings.selectedColorId
+                    },
+                colorTone = colorToneProgress ?: settings.colorTone,
+                seedColor =
+                    if (colorToneProgress != null) clockSettings.seedColor else settings.seedColor,
+                fontAxes =
+                    clockSettings.axisSettings?.let { ClockFontAxis.merge(settings.fontAxes, it) }
+                        ?: settings.fontAxes,
+            )
+        }
     }
 
     companion object {
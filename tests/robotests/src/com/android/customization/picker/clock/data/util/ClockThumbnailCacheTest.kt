@@ -0,0 +1,136 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.picker.clock.data.util
+
+import android.content.Context
+import android.graphics.Canvas
+import android.graphics.Color
+import android.graphics.ColorFilter
+import android.graphics.PixelFormat
+import android.graphics.Rect
+import android.graphics.drawable.BitmapDrawable
+import android.graphics.drawable.ColorDrawable
+import android.graphics.drawable.Drawable
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.SmallTest
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.runTest
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@OptIn(ExperimentalCoroutinesApi::class)
+@SmallTest
+@RunWith(RobolectricTestRunner::class)
+class ClockThumbnailCacheTest {
+
+    private val testDispatcher = StandardTestDispatcher()
+    private lateinit var context: Context
+    private lateinit var underTest: ClockThumbnailCache
+
+    @Before
+    fun setUp() {
+        context = ApplicationProvider.getApplicationContext()
+        underTest = ClockThumbnailCache(context, testDispatcher)
+    }
+
+    @Test
+    fun get_rasterizesAtRequestedSize() =
+        runTest(testDispatcher) {
+            val thumbnail = underTest.get(CLOCK_ID, ColorDrawable(Color.RED), SIZE_PX)
+
+            val bitmap = (thumbnail as BitmapDrawable).bitmap
+            assertThat(bitmap.width).isEqualTo(SIZE_PX)
+            assertThat(bitmap.height).isEqualTo(SIZE_PX)
+        }
+
+    @Test
+    fun get_sameKey_reusesBitmap() =
+        runTest(testDispatcher) {
+            val first = underTest.get(CLOCK_ID, ColorDrawable(Color.RED), SIZE_PX)
+            val second = underTest.get(CLOCK_ID, ColorDrawable(Color.RED), SIZE_PX)
+
+            assertThat((second as BitmapDrawable).bitmap)
+                .isSameInstanceAs((first as BitmapDrawable).bitmap)
+        }
+
+    @Test
+    fun get_differentSize_rasterizesAgain() =
+        runTest(testDispatcher) {
+            val first = underTest.get(CLOCK_ID, ColorDrawable(Color.RED), SIZE_PX)
+            val second = underTest.get(CLOCK_ID, ColorDrawable(Color.RED), SIZE_PX * 2)
+
+            assertThat((second as BitmapDrawable).bitmap)
+                .isNotSameInstanceAs((first as BitmapDrawable).bitmap)
+            assertThat(second.bitmap.width).isEqualTo(SIZE_PX * 2)
+        }
+
+    @Test
+    fun get_afterRestart_readsFromDisk() =
+        runTest(testDispatcher) {
+            underTest.get(CLOCK_ID, RecordingDrawable(SIZE_PX, SIZE_PX), SIZE_PX)
+            // A new instance has an empty memory cache, like the next process.
+            val restarted = ClockThumbnailCache(context, testDispatcher)
+            val thumbnail = RecordingDrawable(SIZE_PX, SIZE_PX)
+
+            val restored = restarted.get(CLOCK_ID, thumbnail, SIZE_PX)
+
+            assertThat(restored).isInstanceOf(BitmapDrawable::class.java)
+            assertThat(thumbnail.drawCount).isEqualTo(0)
+        }
+
+    @Test
+    fun get_clockIdsDifferingInPunctuation_rasterizeSeparately() =
+        runTest(testDispatcher) {
+            underTest.get("clock.a", RecordingDrawable(SIZE_PX, SIZE_PX), SIZE_PX)
+            val thumbnail = RecordingDrawable(SIZE_PX, SIZE_PX)
+
+            underTest.get("clock_a", thumbnail, SIZE_PX)
+
+            assertThat(thumbnail.drawCount).isEqualTo(1)
+        }
+
+    @Test
+    fun get_nonSquareThumbnail_fitsCenteredKeepingAspectRatio() =
+        runTest(testDispatcher) {
+            val thumbnail = RecordingDrawable(width = 40, height = 20)
+
+            underTest.get(CLOCK_ID, thumbnail, SIZE_PX)
+
+            // Scaled by 1.2 to 48x24 and centered vertically.
+            assertThat(thumbnail.drawnBounds).isEqualTo(Rect(0, 12, 48, 36))
+        }
+
+    /** A drawable of a fixed intrinsic size that records how it was drawn. */
+    private class RecordingDrawable(private val width: Int, private val height: Int) : Drawable() {
+        var drawCount = 0
+        var drawnBounds: Rect? = null
+
+        override fun getIntrinsicWidth(): Int = width
+
+        override fun getIntrinsicHeight(): Int = height
+
+        override fun draw(canvas: Canvas) {
+            drawCount++
+            drawnBounds = Rect(bounds)
+        }
+
+        override fun setAlpha(alpha: Int) {}
+
+        override fun setColorFilter(colorFilter: ColorFilter?) {}
+
+        @Deprecated("Deprecated in Java")
+        override fun getOpacity(): Int = PixelFormat.TRANSLUCENT
+    }
+
+    companion object {
+        private const val CLOCK_ID = "clock"
+        private const val SIZE_PX = 48
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.picker.clock.ui.view
+
+import android.app.Activity
+import android.app.WallpaperManager
+import androidx.test.filters.SmallTest
+import com.android.systemui.plugins.clocks.ClockController
+import com.android.systemui.shared.clocks.ClockRegistry
+import com.google.common.truth.Truth.assertThat
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.mockito.Answers
+import org.mockito.ArgumentMatchers.anyBoolean
+import org.mockito.ArgumentMatchers.anyString
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.never
+import org.mockito.Mockito.times
+import org.mockito.Mockito.verify
+import org.mockito.Mockito.`when` as whenever
+import org.robolectric.Robolectric
+import org.robolectric.RobolectricTestRunner
+
+@SmallTest
+@RunWith(RobolectricTestRunner::class)
+class ThemePickerClockViewFactoryTest {
+
+    private lateinit var registry: ClockRegistry
+    private lateinit var underTest: ThemePickerClockViewFactory
+
+    @Before
+    fun setUp() {
+        registry = mock(ClockRegistry::class.java)
+        whenever(registry.activeClockId).thenReturn(ACTIVE_CLOCK_ID)
+        whenever(registry.createExampleClock(anyString())).thenAnswer {
+            mock(ClockController::class.java, Answers.RETURNS_DEEP_STUBS)
+        }
+        val activity = Robolectric.buildActivity(Activity::class.java).setup().get()
+        underTest =
+            ThemePickerClockViewFactory(
+                activity,
+                WallpaperManager.getInstance(activity),
+                registry,
+            )
+    }
+
+    @Test
+    fun getController_moreClocksThanThePool_evictsTheLeastRecentlyUsed() {
+        val firstController = underTest.getController(clockIds[0])
+        clockIds.drop(1).forEach { underTest.getController(it) }
+
+        val controller = underTest.getController(clockIds[0])
+
+        assertThat(controller).isNotSameInstanceAs(firstController)
+        verify(registry, times(2)).createExampleClock(clockIds[0])
+    }
+
+    @Test
+    fun getController_moreClocksThanThePool_keepsTheActiveClock() {
+        val activeController = underTest.getController(ACTIVE_CLOCK_ID)
+        clockIds.forEach { underTest.getController(it) }
+
+        assertThat(underTest.getController(ACTIVE_CLOCK_ID)).isSameInstanceAs(activeController)
+        verify(registry, times(1)).createExampleClock(ACTIVE_CLOCK_ID)
+    }
+
+    @Test
+    fun getController_moreClocksThanThePool_keepsThePinnedClocks() {
+        // The clocks a carousel centered on the fourth clock shows and prewarms.
+        val pinnedClockIds = clockIds.take(PINNED_CLOCK_COUNT)
+        underTest.setPinnedClockIds(pinnedClockIds.toSet())
+        val pinnedControllers = pinnedClockIds.map { underTest.getController(it) }
+
+        clockIds.drop(PINNED_CLOCK_COUNT).forEach { underTest.getController(it) }
+
+        assertThat(pinnedClockIds.map { underTest.getController(it) })
+            .containsExactlyElementsIn(pinnedControllers)
+            .inOrder()
+        pinnedClockIds.forEach { verify(registry, times(1)).createExampleClock(it) }
+    }
+
+    @Test
+    fun getController_unpinnedClocks_canBeEvictedAgain() {
+        val pinnedClockIds = clockIds.take(PINNED_CLOCK_COUNT)
+        underTest.setPinnedClockIds(pinnedClockIds.toSet())
+        pinnedClockIds.forEach { underTest.getController(it) }
+
+        underTest.setPinnedClockIds(emptySet())
+        clockIds.drop(PINNED_CLOCK_COUNT).forEach { underTest.getController(it) }
+        underTest.getController(clockIds[0])
+
+        verify(registry, times(2)).createExampleClock(clockIds[0])
+    }
+
+    @Test
+    fun updateTimeFormat_doesNotCreateControllers() {
+        clockIds.forEach { underTest.updateTimeFormat(it) }
+
+        verify(registry, never()).createExampleClock(anyString())
+    }
+
+    @Test
+    fun updateTimeFormat_updatesLiveControllers() {
+        val controller = underTest.getController(clockIds[0])
+
+        underTest.updateTimeFormat(clockIds[0])
+
+        // Once when created, once for the update.
+        verify(controller.events, times(2)).onTimeFormatChanged(anyBoolean())
+    }
+
+    companion object {
+        private const val ACTIVE_CLOCK_ID = "active_clock"
+        /** The current clock and the three clocks on each side of it. */
+        private const val PINNED_CLOCK_COUNT = 7
+        /** More clocks than the factory keeps live controllers for. */
+        private val clockIds = List(12) { "clock_$it" }
+    }
+}
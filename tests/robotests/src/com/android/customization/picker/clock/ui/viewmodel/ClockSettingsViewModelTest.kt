@@ -10,20 +10,23 @@ import com.android.customization.picker.clock.domain.interactor.ClockPickerInter
 import com.android.customization.picker.clock.domain.interactor.ClockPickerSnapshotRestorer
 import com.android.customization.picker.clock.shared.ClockSize
 import com.android.customization.picker.clock.shared.model.ClockMetadataModel
+import com.android.customization.picker.color.data.repository.ColorPickerRepository
 import com.android.customization.picker.color.data.repository.FakeColorPickerRepository
 import com.android.customization.picker.color.domain.interactor.ColorPickerInteractor
 import com.android.customization.picker.color.domain.interactor.ColorPickerSnapshotRestorer
+import com.android.customization.picker.color.shared.model.ColorType
 import com.android.wallpaper.testing.FakeSnapshotStore
 import com.android.wallpaper.testing.collectLastValue
 import com.google.common.truth.Truth.assertThat
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.flowOf
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.runBlocking
 import kotlinx.coroutines.test.StandardTestDispatcher
 import kotlinx.coroutines.test.TestScope
-import kotlinx.coroutines.test.advanceTimeBy
 import kotlinx.coroutines.test.resetMain
+import kotlinx.coroutines.test.runCurrent
 import kotlinx.coroutines.test.runTest
 import kotlinx.coroutines.test.setMain
 import org.junit.After
@@ -120,8 +123,7 @@ class ClockSettingsViewModelTest {
             collectLastValue(underTest.selectedColorOptionPosition)
         val observedSliderProgress = collectLastValue(underTest.sliderProgress)
         val observedSeedColor = collectLastValue(underTest.seedColor)
-        // Advance COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from colorOptions
-        advanceTimeBy(ClockSettingsViewModel.COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         val option0IsSelected = collectLastValue(observedClockColorOptions()!![0].isSelected)
         val option0OnClicked = collectLastValue(observedClockColorOptions()!![0].onClicked)
         assertThat(option0IsSelected()).isTrue()
@@ -130,8 +132,7 @@ class ClockSettingsViewModelTest {
 
         val option1OnClickedBefore = collectLastValue(observedClockColorOptions()!![1].onClicked)
         option1OnClickedBefore()?.invoke()
-        // Advance COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from colorOptions
-        advanceTimeBy(ClockSettingsViewModel.COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         val option1IsSelected = collectLastValue(observedClockColorOptions()!![1].isSelected)
         val option1OnClickedAfter = collectLastValue(observedClockColorOptions()!![1].onClicked)
         assertThat(option1IsSelected()).isTrue()
@@ -151,14 +152,52 @@ class ClockSettingsViewModelTest {
             )
     }
 
+    @Test
+    fun colorOptions_afterApplyingSystemColor_showsAppliedColor() = runTest {
+        val fakeColorPickerRepository = FakeColorPickerRepository(context = context)
+        val initialColorOptions = fakeColorPickerRepository.colorOptions.value
+        // Like the real repository, replay the options as they were first built and only publish
+        // selection changes through selectedColorOptionKey.
+        val colorPickerRepository =
+            object : ColorPickerRepository by fakeColorPickerRepository {
+                override val colorOptions = flowOf(initialColorOptions)
+            }
+        val interactor =
+            ColorPickerInteractor(
+                repository = colorPickerRepository,
+                snapshotRestorer =
+                    ColorPickerSnapshotRestorer(repository = colorPickerRepository).apply {
+                        runBlocking { setUpSnapshotRestorer(store = FakeSnapshotStore()) }
+                    },
+            )
+        val viewModel =
+            ClockSettingsViewModel.Factory(
+                    context = context,
+                    clockPickerInteractor = clockPickerInteractor,
+                    colorPickerInteractor = interactor,
+                    logger = logger,
+                    getIsReactiveToTone = getIsReactiveToTone,
+                )
+                .create(ClockSettingsViewModel::class.java)
+        val observedClockColorOptions = collectLastValue(viewModel.colorOptions)
+        runCurrent()
+        val initialKey = collectLastValue(observedClockColorOptions()!![0].key)
+        assertThat(initialKey()).isEqualTo("${ColorType.WALLPAPER_COLOR}::0")
+
+        interactor.select(initialColorOptions[ColorType.PRESET_COLOR]!![1])
+        runCurrent()
+
+        val appliedKey = collectLastValue(observedClockColorOptions()!![0].key)
+        assertThat(appliedKey()).isEqualTo("${ColorType.PRESET_COLOR}::1")
+    }
+
     @Test
     fun setColorTone() = runTest {
         val observedClockColorOptions = collectLastValue(underTest.colorOptions)
         val observedIsSliderEnabled = collectLastValue(underTest.isSliderEnabled)
         val observedSliderProgress = collectLastValue(underTest.sliderProgress)
         val observedSeedColor = collectLastValue(underTest.seedColor)
-        // Advance COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from colorOptions
-        advanceTimeBy(ClockSettingsViewModel.COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         val option0IsSelected = collectLastValue(observedClockColorOptions()!![0].isSelected)
         assertThat(option0IsSelected()).isTrue()
         assertThat(observedIsSliderEnabled()).isFalse()
@@ -166,8 +205,7 @@ class ClockSettingsViewModelTest {
         val option1OnClicked = collectLastValue(observedClockColorOptions()!![1].onClicked)
         option1OnClicked()?.invoke()
 
-        // Advance COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from colorOptions
-        advanceTimeBy(ClockSettingsViewModel.COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         assertThat(observedIsSliderEnabled()).isTrue()
         val targetProgress1 = 99
         underTest.onSliderProgressChanged(targetProgress1)
@@ -201,8 +239,7 @@ class ClockSettingsViewModelTest {
     fun getIsReactiveToTone() = runTest {
         val observedClockColorOptions = collectLastValue(underTest.colorOptions)
         val isSliderEnabled = collectLastValue(underTest.isSliderEnabled)
-        // Advance COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from colorOptions
-        advanceTimeBy(ClockSettingsViewModel.COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         val option1OnClicked = collectLastValue(observedClockColorOptions()!![1].onClicked)
         option1OnClicked()?.invoke()
 
@@ -213,4 +250,19 @@ class ClockSettingsViewModelTest {
         clockPickerInteractor.setSelectedClock(FakeClockPickerRepository.CLOCK_ID_3)
         assertThat(isSliderEnabled()).isFalse()
     }
+
+    @Test
+    fun colorWithTone_matchesBlendColorWithTone() {
+        colorMap.values.forEach { colorModel ->
+            (0..100).forEach { progress ->
+                assertThat(colorModel.getColorWithTone(progress))
+                    .isEqualTo(
+                        ClockSettingsViewModel.blendColorWithTone(
+                            colorModel.color,
+                            colorModel.getColorTone(progress),
+                        )
+                    )
+            }
+        }
+    }
 }
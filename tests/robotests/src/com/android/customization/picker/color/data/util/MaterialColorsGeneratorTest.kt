@@ -0,0 +1,72 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.picker.color.data.util
+
+import android.content.Context
+import android.graphics.Color
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.filters.SmallTest
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository
+import com.android.systemui.monet.Style
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.test.StandardTestDispatcher
+import kotlinx.coroutines.test.runTest
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@OptIn(ExperimentalCoroutinesApi::class)
+@SmallTest
+@RunWith(RobolectricTestRunner::class)
+class MaterialColorsGeneratorTest {
+
+    private val testDispatcher = StandardTestDispatcher()
+
+    private lateinit var underTest: MaterialColorsGenerator
+
+    @Before
+    fun setUp() {
+        val context: Context = ApplicationProvider.getApplicationContext()
+        underTest =
+            MaterialColorsGenerator(
+                context,
+                ThemeOverlaySettingsRepository(context.contentResolver),
+                testDispatcher,
+            )
+    }
+
+    @Test
+    fun prefetch_cachesEveryPalette() =
+        runTest(testDispatcher) {
+            assertThat(underTest.getCachedPalette(Color.RED, Style.TONAL_SPOT)).isNull()
+
+            underTest.prefetch(listOf(Color.RED to Style.TONAL_SPOT, Color.BLUE to Style.VIBRANT))
+
+            assertThat(underTest.getCachedPalette(Color.RED, Style.TONAL_SPOT)).isNotNull()
+            assertThat(underTest.getCachedPalette(Color.BLUE, Style.VIBRANT)).isNotNull()
+        }
+
+    @Test
+    fun generate_afterPrefetch_returnsPrefetchedPalette() =
+        runTest(testDispatcher) {
+            underTest.prefetch(listOf(Color.RED to Style.TONAL_SPOT))
+            val prefetched = underTest.getCachedPalette(Color.RED, Style.TONAL_SPOT)
+
+            assertThat(underTest.generate(Color.RED, Style.TONAL_SPOT)).isSameInstanceAs(prefetched)
+        }
+
+    @Test
+    fun generate_otherStyle_isNotServedFromPrefetchedPalette() =
+        runTest(testDispatcher) {
+            underTest.prefetch(listOf(Color.RED to Style.TONAL_SPOT))
+
+            assertThat(underTest.getCachedPalette(Color.RED, Style.VIBRANT)).isNull()
+            assertThat(underTest.generate(Color.RED, Style.VIBRANT))
+                .isNotSameInstanceAs(underTest.getCachedPalette(Color.RED, Style.TONAL_SPOT))
+        }
+}
@@ -29,7 +29,9 @@ import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.advanceTimeBy
 import kotlinx.coroutines.test.resetMain
+import kotlinx.coroutines.test.runCurrent
 import kotlinx.coroutines.test.runTest
 import org.junit.After
 import org.junit.Before
@@ -134,6 +136,59 @@ class ShapeGridRepositoryTest {
                 )
         }
 
+    @Test
+    fun gridOptions_applyRejected_keepsLauncherOptions() =
+        testScope.runTest {
+            val gridOptions = collectLastValue(underTest.gridOptions)
+            gridOptionsManager.isApplyRejected = true
+
+            underTest.applySelectedOption("circle", "practical")
+
+            assertThat(gridOptions()).isEqualTo(FakeShapeGridManager.DEFAULT_GRID_OPTION_LIST)
+        }
+
+    @Test
+    fun gridOptions_staleChangeAfterApply_keepsAppliedOption() =
+        testScope.runTest {
+            val gridOptions = collectLastValue(underTest.gridOptions)
+            gridOptionsManager.isApplyDeferred = true
+            val appliedGridOptions =
+                FakeShapeGridManager.DEFAULT_GRID_OPTION_LIST.map {
+                    it.copy(isCurrent = (it.key == "practical"))
+                }
+
+            underTest.applySelectedOption("circle", "practical")
+            gridOptionsManager.notifyShapeGridChanged()
+
+            assertThat(gridOptions()).isEqualTo(appliedGridOptions)
+
+            gridOptionsManager.publishDeferredApply()
+
+            assertThat(gridOptions()).isEqualTo(appliedGridOptions)
+        }
+
+    @Test
+    fun gridOptions_appliedOptionNeverListed_expiresAfterTimeout() =
+        testScope.runTest {
+            val gridOptions = collectLastValue(underTest.gridOptions)
+            gridOptionsManager.isApplyDeferred = true
+
+            underTest.applySelectedOption("circle", "practical")
+            gridOptionsManager.notifyShapeGridChanged()
+            runCurrent()
+
+            assertThat(gridOptions())
+                .isEqualTo(
+                    FakeShapeGridManager.DEFAULT_GRID_OPTION_LIST.map {
+                        it.copy(isCurrent = (it.key == "practical"))
+                    }
+                )
+
+            advanceTimeBy(PENDING_SELECTION_TIMEOUT_MILLIS + 1)
+
+            assertThat(gridOptions()).isEqualTo(FakeShapeGridManager.DEFAULT_GRID_OPTION_LIST)
+        }
+
     @Test
     fun selectedGridOption_default() =
         testScope.runTest {
@@ -153,4 +208,8 @@ class ShapeGridRepositoryTest {
             assertThat(selectedGridOption())
                 .isEqualTo(FakeShapeGridManager.DEFAULT_GRID_OPTION_LIST[1].copy(isCurrent = true))
         }
+
+    companion object {
+        private const val PENDING_SELECTION_TIMEOUT_MILLIS = 3_000L
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.picker.grid.shared.model
+
+import androidx.test.filters.SmallTest
+import com.android.customization.model.grid.GridOptionModel
+import com.google.common.truth.Truth.assertThat
+import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.junit.runners.JUnit4
+
+@SmallTest
+@RunWith(JUnit4::class)
+class GridOptionsDiffTest {
+
+    @Test
+    fun between_noOldSnapshot_addsEveryOption() {
+        val diff = diff(old = null, new = listOf(NORMAL, PRACTICAL))
+
+        assertThat(diff.addedKeys).containsExactly("normal", "practical")
+        assertThat(diff.removedKeys).isEmpty()
+        assertThat(diff.currentChangedKeys).isEmpty()
+    }
+
+    @Test
+    fun between_currentOptionChanged() {
+        val diff =
+            diff(
+                old = listOf(NORMAL, PRACTICAL),
+                new = listOf(NORMAL.copy(isCurrent = false), PRACTICAL.copy(isCurrent = true)),
+            )
+
+        assertThat(diff.addedKeys).isEmpty()
+        assertThat(diff.removedKeys).isEmpty()
+        assertThat(diff.currentChangedKeys).containsExactly("normal", "practical")
+        assertThat(diff.contentChangedKeys).isEmpty()
+    }
+
+    @Test
+    fun between_optionContentChanged() {
+        val diff =
+            diff(
+                old = listOf(NORMAL, PRACTICAL),
+                new = listOf(NORMAL.copy(title = "Normal"), PRACTICAL.copy(rows = 6)),
+            )
+
+        assertThat(diff.addedKeys).isEmpty()
+        assertThat(diff.removedKeys).isEmpty()
+        assertThat(diff.currentChangedKeys).isEmpty()
+        assertThat(diff.contentChangedKeys).containsExactly("normal", "practical")
+    }
+
+    @Test
+    fun between_optionsAddedAndRemoved() {
+        val diff = diff(old = listOf(NORMAL, PRACTICAL), new = listOf(NORMAL, REDUCED))
+
+        assertThat(diff.addedKeys).containsExactly("reduced")
+        assertThat(diff.removedKeys).containsExactly("practical")
+        assertThat(diff.currentChangedKeys).isEmpty()
+        assertThat(diff.options).containsExactly(NORMAL, REDUCED).inOrder()
+    }
+
+    @Test
+    fun gridOptionsDiffs_skipsUnchangedSnapshots() = runTest {
+        val diffs =
+            flowOf(listOf(NORMAL, PRACTICAL), listOf(NORMAL, PRACTICAL), listOf(NORMAL))
+                .gridOptionsDiffs(
+                    key = { it.key },
+                    isCurrent = { it.isCurrent },
+                    content = ::content,
+                )
+                .toList()
+
+        assertThat(diffs).hasSize(2)
+        assertThat(diffs[0].addedKeys).containsExactly("normal", "practical")
+        assertThat(diffs[1].removedKeys).containsExactly("practical")
+    }
+
+    @Test
+    fun gridOptionsDiffs_emitsContentOnlyChanges() = runTest {
+        val diffs =
+            flowOf(listOf(NORMAL), listOf(NORMAL.copy(title = "Normal")))
+                .gridOptionsDiffs(
+                    key = { it.key },
+                    isCurrent = { it.isCurrent },
+                    content = ::content,
+                )
+                .toList()
+
+        assertThat(diffs).hasSize(2)
+        assertThat(diffs[1].contentChangedKeys).containsExactly("normal")
+    }
+
+    private fun diff(
+        old: List<GridOptionModel>?,
+        new: List<GridOptionModel>,
+    ): GridOptionsDiff<GridOptionModel> {
+        return GridOptionsDiff.between(
+            old,
+            new,
+            key = { it.key },
+            isCurrent = { it.isCurrent },
+            content = ::content,
+        )
+    }
+
+    private fun content(option: GridOptionModel): Any = option.copy(isCurrent = false)
+
+    companion object {
+        private val NORMAL =
+            GridOptionModel(key = "normal", title = "5x5", isCurrent = true, rows = 5, cols = 5)
+        private val PRACTICAL =
+            GridOptionModel(key = "practical", title = "4x5", isCurrent = false, rows = 5, cols = 4)
+        private val REDUCED =
+            GridOptionModel(key = "reduced", title = "4x4", isCurrent = false, rows = 4, cols = 4)
+    }
+}
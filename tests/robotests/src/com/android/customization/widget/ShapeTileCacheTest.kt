@@ -0,0 +1,128 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.customization.widget
+
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Color
+import android.graphics.ColorFilter
+import android.graphics.Paint
+import android.graphics.PorterDuff
+import android.graphics.PorterDuffColorFilter
+import android.graphics.drawable.Drawable
+import androidx.test.filters.SmallTest
+import com.android.wallpaper.customization.ui.view.ShapeTileDrawable
+import com.google.common.truth.Truth.assertThat
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@SmallTest
+@RunWith(RobolectricTestRunner::class)
+class ShapeTileCacheTest {
+
+    @Test
+    fun getPath_equalPathStrings_shareOneParsedPath() {
+        // Distinct instances, like the strings read from two separate launcher queries.
+        val first = ShapeTileCache.getPath(String(SQUARE_PATH.toCharArray()))
+        val second = ShapeTileCache.getPath(String(SQUARE_PATH.toCharArray()))
+
+        assertThat(second).isSameInstanceAs(first)
+    }
+
+    @Test
+    fun getTile_sameKeyAndSize_rendersOnce() {
+        var renderCount = 0
+        val renderer = ShapeTileCache.TileRenderer { _, _ -> renderCount++ }
+
+        val first = ShapeTileCache.getTile("getTile_sameKeyAndSize", SIZE_PX, SIZE_PX, renderer)
+        val second = ShapeTileCache.getTile("getTile_sameKeyAndSize", SIZE_PX, SIZE_PX, renderer)
+
+        assertThat(second).isSameInstanceAs(first)
+        assertThat(first.config).isEqualTo(Bitmap.Config.ALPHA_8)
+        assertThat(renderCount).isEqualTo(1)
+    }
+
+    @Test
+    fun getTile_differentSize_rendersAgain() {
+        val renderer = ShapeTileCache.TileRenderer { _, _ -> }
+
+        val first = ShapeTileCache.getTile("getTile_differentSize", SIZE_PX, SIZE_PX, renderer)
+        val second =
+            ShapeTileCache.getTile("getTile_differentSize", SIZE_PX * 2, SIZE_PX * 2, renderer)
+
+        assertThat(second).isNotSameInstanceAs(first)
+        assertThat(second.width).isEqualTo(SIZE_PX * 2)
+    }
+
+    @Test
+    fun shapeTileDrawable_sameShapeAndSize_shareOneTileDrawnWithEachTint() {
+        val red = ShapeTileDrawable(CIRCLE_PATH, rasterize = true).tinted(Color.RED)
+        val blue = ShapeTileDrawable(CIRCLE_PATH, rasterize = true).tinted(Color.BLUE)
+
+        val redDraw = red.recordBitmapDraw()
+        val blueDraw = blue.recordBitmapDraw()
+
+        assertThat(blueDraw.bitmap).isSameInstanceAs(redDraw.bitmap)
+        assertThat(redDraw.bitmap.config).isEqualTo(Bitmap.Config.ALPHA_8)
+        assertThat(redDraw.colorFilter).isEqualTo(tint(Color.RED))
+        assertThat(blueDraw.colorFilter).isEqualTo(tint(Color.BLUE))
+    }
+
+    @Test
+    fun gridTileDrawable_sameGridShapeAndSize_shareOneTileDrawnWithEachTint() {
+        val red = GridTileDrawable(4, 5, SQUIRCLE_PATH, /* rasterize= */ true).tinted(Color.RED)
+        val blue = GridTileDrawable(4, 5, SQUIRCLE_PATH, /* rasterize= */ true).tinted(Color.BLUE)
+
+        val redDraw = red.recordBitmapDraw()
+        val blueDraw = blue.recordBitmapDraw()
+
+        assertThat(blueDraw.bitmap).isSameInstanceAs(redDraw.bitmap)
+        assertThat(redDraw.bitmap.config).isEqualTo(Bitmap.Config.ALPHA_8)
+        assertThat(redDraw.colorFilter).isEqualTo(tint(Color.RED))
+        assertThat(blueDraw.colorFilter).isEqualTo(tint(Color.BLUE))
+    }
+
+    @Test
+    fun gridTileDrawable_differentGrid_doesNotShareTheTile() {
+        val fourByFive = GridTileDrawable(4, 5, SQUIRCLE_PATH, /* rasterize= */ true)
+        val fiveByFive = GridTileDrawable(5, 5, SQUIRCLE_PATH, /* rasterize= */ true)
+
+        assertThat(fiveByFive.recordBitmapDraw().bitmap)
+            .isNotSameInstanceAs(fourByFive.recordBitmapDraw().bitmap)
+    }
+
+    private fun <T : Drawable> T.tinted(color: Int): T = apply { colorFilter = tint(color) }
+
+    private fun tint(color: Int): ColorFilter = PorterDuffColorFilter(color, PorterDuff.Mode.SRC_IN)
+
+    /** Draws this drawable at [SIZE_PX] and returns the only bitmap it drew. */
+    private fun Drawable.recordBitmapDraw(): BitmapDraw {
+        setBounds(0, 0, SIZE_PX, SIZE_PX)
+        val canvas = BitmapDrawRecordingCanvas()
+        draw(canvas)
+        return canvas.draws.single()
+    }
+
+    private class BitmapDraw(val bitmap: Bitmap, val colorFilter: ColorFilter?)
+
+    /** A canvas that records the bitmaps drawn onto it and the filter of each draw's paint. */
+    private class BitmapDrawRecordingCanvas : Canvas() {
+        val draws = mutableListOf<BitmapDraw>()
+
+        override fun drawBitmap(bitmap: Bitmap, left: Float, top: Float, paint: Paint?) {
+            draws.add(BitmapDraw(bitmap, paint?.colorFilter))
+        }
+    }
+
+    companion object {
+        private const val SIZE_PX = 64
+        private const val SQUARE_PATH = "M0,0 H100 V100 H0 Z"
+        private const val CIRCLE_PATH = "M50,0 A50,50,0,1,1,50,100 A50,50,0,1,1,50,0 Z"
+        private const val SQUIRCLE_PATH =
+            "M50,0 C10,0 0,10 0,50 C0,90 10,100 50,100 C90,100 100,90 100,50 C100,10 90,0 50,0 Z"
+    }
+}
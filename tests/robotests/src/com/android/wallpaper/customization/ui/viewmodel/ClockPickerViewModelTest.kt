@@ -20,6 +20,7 @@ import android.content.Context
 import androidx.test.filters.SmallTest
 import com.android.customization.module.logging.TestThemesUserEventLogger
 import com.android.customization.picker.clock.data.repository.FakeClockPickerRepository
+import com.android.customization.picker.clock.data.util.ClockThumbnailCache
 import com.android.customization.picker.clock.domain.interactor.ClockPickerInteractor
 import com.android.customization.picker.clock.domain.interactor.ClockPickerSnapshotRestorer
 import com.android.customization.picker.clock.shared.ClockSize
@@ -43,8 +44,8 @@ import kotlinx.coroutines.launch
 import kotlinx.coroutines.runBlocking
 import kotlinx.coroutines.test.TestDispatcher
 import kotlinx.coroutines.test.TestScope
-import kotlinx.coroutines.test.advanceTimeBy
 import kotlinx.coroutines.test.resetMain
+import kotlinx.coroutines.test.runCurrent
 import kotlinx.coroutines.test.runTest
 import kotlinx.coroutines.test.setMain
 import org.junit.After
@@ -100,6 +101,7 @@ class ClockPickerViewModelTest {
                 clockPickerInteractor = clockPickerInteractor,
                 colorPickerInteractor = colorPickerInteractor,
                 logger = logger,
+                clockThumbnailCache = ClockThumbnailCache(context, testDispatcher),
                 backgroundDispatcher = testDispatcher,
                 viewModelScope = testScope,
             )
@@ -141,8 +143,7 @@ class ClockPickerViewModelTest {
     fun selectedTab_fontEditorWhenClickSelectedClock() = runTest {
         val clockStyleOptions = collectLastValue(underTest.clockStyleOptions)
         val selectedTab = collectLastValue(underTest.selectedTab)
-        // Advance CLOCKS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from clockStyleOptions
-        advanceTimeBy(ClockPickerViewModel.CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         assertThat(selectedTab()).isEqualTo(Tab.STYLE)
 
         val firstClock = clockStyleOptions()!![0]
@@ -157,15 +158,13 @@ class ClockPickerViewModelTest {
     fun previewingClock_whenClickOnStyleOptions() = runTest {
         val previewingClock = collectLastValue(underTest.previewingClock)
         val clockStyleOptions = collectLastValue(underTest.clockStyleOptions)
-        // Advance CLOCKS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from clockStyleOptions
-        advanceTimeBy(ClockPickerViewModel.CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
 
         assertThat(previewingClock()?.clockId).isEqualTo(FakeClockPickerRepository.CLOCK_ID_0)
 
         val option1OnClicked = collectLastValue(clockStyleOptions()!![1].onClicked)
         option1OnClicked()?.invoke()
-        // Advance CLOCKS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from clockColorOptions
-        advanceTimeBy(ClockPickerViewModel.CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
 
         assertThat(previewingClock()?.clockId).isEqualTo(FakeClockPickerRepository.CLOCK_ID_1)
     }
@@ -173,8 +172,7 @@ class ClockPickerViewModelTest {
     @Test
     fun clockStyleOptions_whenClickOnStyleOptions() = runTest {
         val clockStyleOptions = collectLastValue(underTest.clockStyleOptions)
-        // Advance CLOCKS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from clockStyleOptions
-        advanceTimeBy(ClockPickerViewModel.CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         val option0IsSelected = collectLastValue(clockStyleOptions()!![0].isSelected)
         val option0OnClicked = collectLastValue(clockStyleOptions()!![0].onClicked)
         val option1IsSelected = collectLastValue(clockStyleOptions()!![1].isSelected)
@@ -184,8 +182,7 @@ class ClockPickerViewModelTest {
         assertThat(option0OnClicked()).isNotNull()
 
         option1OnClicked()?.invoke()
-        // Advance CLOCKS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from clockColorOptions
-        advanceTimeBy(ClockPickerViewModel.CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
 
         assertThat(option0IsSelected()).isFalse()
         assertThat(option1IsSelected()).isTrue()
@@ -228,8 +225,7 @@ class ClockPickerViewModelTest {
         val previewingFontAxes = collectLastValue(underTest.previewingClockFontAxisMap)
         val clockStyleOptions = collectLastValue(underTest.clockStyleOptions)
         val selectedTab = collectLastValue(underTest.selectedTab)
-        // Advance CLOCKS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from clockStyleOptions
-        advanceTimeBy(ClockPickerViewModel.CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
 
         assertThat(previewingFontAxes()).isEqualTo(mapOf("key" to 50f))
         assertThat(selectedTab()).isEqualTo(Tab.STYLE)
@@ -254,8 +250,7 @@ class ClockPickerViewModelTest {
         val previewingFontAxes = collectLastValue(underTest.previewingClockFontAxisMap)
         val clockStyleOptions = collectLastValue(underTest.clockStyleOptions)
         val selectedTab = collectLastValue(underTest.selectedTab)
-        // Advance CLOCKS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from clockStyleOptions
-        advanceTimeBy(ClockPickerViewModel.CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
 
         assertThat(previewingFontAxes()).isEqualTo(mapOf("key" to 50f))
         assertThat(selectedTab()).isEqualTo(Tab.STYLE)
@@ -289,20 +284,16 @@ class ClockPickerViewModelTest {
     @Test
     fun isSliderEnabledShouldBeTrue_whenTheClockIsReactiveToToneAndSolidColor() = runTest {
         val clockStyleOptions = collectLastValue(underTest.clockStyleOptions)
-        // Advance CLOCKS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from clockStyleOptions
-        advanceTimeBy(ClockPickerViewModel.CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         val styleOption0OnClicked = collectLastValue(clockStyleOptions()!![0].onClicked)
         val clockColorOptions = collectLastValue(underTest.clockColorOptions)
-        // Advance COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from
-        // clockColorOptions
-        advanceTimeBy(ClockPickerViewModel.COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         val colorOption1OnClicked = collectLastValue(clockColorOptions()!![1].onClicked)
         val isSliderEnabled = collectLastValue(underTest.isSliderEnabled)
 
         styleOption0OnClicked()?.invoke()
         colorOption1OnClicked()?.invoke()
-        // Advance CLOCKS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from clockStyleOptions
-        advanceTimeBy(ClockPickerViewModel.CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
 
         assertThat(isSliderEnabled()).isTrue()
     }
@@ -310,20 +301,16 @@ class ClockPickerViewModelTest {
     @Test
     fun isSliderEnabledShouldBeFalse_whenTheClockIsReactiveToToneAndDefaultColor() = runTest {
         val clockStyleOptions = collectLastValue(underTest.clockStyleOptions)
-        // Advance CLOCKS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from clockStyleOptions
-        advanceTimeBy(ClockPickerViewModel.CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         val styleOption0OnClicked = collectLastValue(clockStyleOptions()!![0].onClicked)
         val clockColorOptions = collectLastValue(underTest.clockColorOptions)
-        // Advance COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from
-        // clockColorOptions
-        advanceTimeBy(ClockPickerViewModel.COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         val colorOption0OnClicked = collectLastValue(clockColorOptions()!![0].onClicked)
         val isSliderEnabled = collectLastValue(underTest.isSliderEnabled)
 
         styleOption0OnClicked()?.invoke()
         colorOption0OnClicked()?.invoke()
-        // Advance CLOCKS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from clockStyleOptions
-        advanceTimeBy(ClockPickerViewModel.CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
 
         assertThat(isSliderEnabled()).isFalse()
     }
@@ -331,14 +318,12 @@ class ClockPickerViewModelTest {
     @Test
     fun isSliderEnabledShouldBeFalse_whenTheClockIsNotReactiveToTone() = runTest {
         val clockStyleOptions = collectLastValue(underTest.clockStyleOptions)
-        // Advance CLOCKS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from clockStyleOptions
-        advanceTimeBy(ClockPickerViewModel.CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         val styleOption3OnClicked = collectLastValue(clockStyleOptions()!![3].onClicked)
         val isSliderEnabled = collectLastValue(underTest.isSliderEnabled)
 
         styleOption3OnClicked()?.invoke()
-        // Advance CLOCKS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from clockStyleOptions
-        advanceTimeBy(ClockPickerViewModel.CLOCKS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
 
         assertThat(isSliderEnabled()).isFalse()
     }
@@ -347,15 +332,11 @@ class ClockPickerViewModelTest {
     fun previewingSeedColor_whenChangeColorOptionAndToneProgress() = runTest {
         val previewingSeedColor = collectLastValue(underTest.previewingSeedColor)
         val clockColorOptions = collectLastValue(underTest.clockColorOptions)
-        // Advance COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from
-        // clockColorOptions
-        advanceTimeBy(ClockPickerViewModel.COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         val option1OnClicked = collectLastValue(clockColorOptions()!![1].onClicked)
 
         option1OnClicked()?.invoke()
-        // Advance COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from
-        // clockColorOptions
-        advanceTimeBy(ClockPickerViewModel.COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         val targetProgress = 55
         underTest.onSliderProgressChanged(targetProgress)
 
@@ -372,9 +353,7 @@ class ClockPickerViewModelTest {
     @Test
     fun clockColorOptions_whenClickOnColorOptions() = runTest {
         val clockColorOptions = collectLastValue(underTest.clockColorOptions)
-        // Advance COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from
-        // clockColorOptions
-        advanceTimeBy(ClockPickerViewModel.COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
         val option0IsSelected = collectLastValue(clockColorOptions()!![0].isSelected)
         val option0OnClicked = collectLastValue(clockColorOptions()!![0].onClicked)
         val option1IsSelected = collectLastValue(clockColorOptions()!![1].isSelected)
@@ -384,9 +363,7 @@ class ClockPickerViewModelTest {
         assertThat(option0OnClicked()).isNull()
 
         option1OnClicked()?.invoke()
-        // Advance COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS since there is a delay from
-        // clockColorOptions
-        advanceTimeBy(ClockPickerViewModel.COLOR_OPTIONS_EVENT_UPDATE_DELAY_MILLIS)
+        runCurrent()
 
         assertThat(option0IsSelected()).isFalse()
         assertThat(option1IsSelected()).isTrue()
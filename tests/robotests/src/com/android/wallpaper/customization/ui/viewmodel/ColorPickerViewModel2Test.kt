@@ -21,8 +21,11 @@ import android.stats.style.StyleEnums
 import androidx.test.filters.SmallTest
 import androidx.test.platform.app.InstrumentationRegistry
 import com.android.customization.model.color.ColorOptionsProvider
+import com.android.customization.model.theme.ThemeOverlaySettingsRepository
 import com.android.customization.module.logging.TestThemesUserEventLogger
+import com.android.customization.picker.color.data.repository.ColorPickerRepository
 import com.android.customization.picker.color.data.repository.FakeColorPickerRepository
+import com.android.customization.picker.color.data.util.MaterialColorsGenerator
 import com.android.customization.picker.color.domain.interactor.ColorPickerInteractor
 import com.android.customization.picker.color.domain.interactor.ColorPickerSnapshotRestorer
 import com.android.customization.picker.color.shared.model.ColorType
@@ -36,6 +39,7 @@ import com.google.common.truth.Truth.assertThat
 import com.google.common.truth.Truth.assertWithMessage
 import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.flowOf
 import kotlinx.coroutines.launch
 import kotlinx.coroutines.runBlocking
 import kotlinx.coroutines.test.TestScope
@@ -80,17 +84,45 @@ class ColorPickerViewModel2Test {
                     },
             )
 
-        underTest =
-            ColorPickerViewModel2(
-                context = context,
-                interactor = interactor,
-                logger = logger,
-                viewModelScope = testScope.backgroundScope,
-            )
+        underTest = createViewModel(interactor)
 
         repository.setOptions(4, 4, ColorType.WALLPAPER_COLOR, 0)
     }
 
+    private fun createViewModel(interactor: ColorPickerInteractor): ColorPickerViewModel2 {
+        return ColorPickerViewModel2(
+            context = context,
+            interactor = interactor,
+            materialColorsGenerator =
+                MaterialColorsGenerator(
+                    context,
+                    ThemeOverlaySettingsRepository(context.contentResolver),
+                    UnconfinedTestDispatcher(testScope.testScheduler),
+                ),
+            logger = logger,
+            viewModelScope = testScope.backgroundScope,
+        )
+    }
+
+    /**
+     * Like the real repository, replays the options as they were first built and only publishes
+     * selection changes through selectedColorOptionKey.
+     */
+    private fun createInteractorReplayingFirstOptions(): ColorPickerInteractor {
+        val initialColorOptions = repository.colorOptions.value
+        val replayingRepository =
+            object : ColorPickerRepository by repository {
+                override val colorOptions = flowOf(initialColorOptions)
+            }
+        return ColorPickerInteractor(
+            repository = replayingRepository,
+            snapshotRestorer =
+                ColorPickerSnapshotRestorer(repository = replayingRepository).apply {
+                    runBlocking { setUpSnapshotRestorer(store = FakeSnapshotStore()) }
+                },
+        )
+    }
+
     @After
     fun tearDown() {
         Dispatchers.resetMain()
@@ -227,6 +259,37 @@ class ColorPickerViewModel2Test {
             )
         }
 
+    @Test
+    fun focusedColorOptionKey_appliedWithoutNewOptions_isAppliedKey() =
+        testScope.runTest {
+            val interactor = createInteractorReplayingFirstOptions()
+            val underTest = createViewModel(interactor)
+            val focusedColorOptionKey = collectLastValue(underTest.focusedColorOptionKey)
+            assertThat(focusedColorOptionKey()).isEqualTo("${ColorType.WALLPAPER_COLOR}::0")
+
+            interactor.select(repository.colorOptions.value[ColorType.PRESET_COLOR]!![1])
+
+            assertThat(focusedColorOptionKey()).isEqualTo("${ColorType.PRESET_COLOR}::1")
+        }
+
+    @Test
+    fun colorOptions_appliedWithoutNewOptions_startFromAppliedKey() =
+        testScope.runTest {
+            val interactor = createInteractorReplayingFirstOptions()
+            val underTest = createViewModel(interactor)
+            interactor.select(repository.colorOptions.value[ColorType.PRESET_COLOR]!![1])
+
+            val colorTypes = collectLastValue(underTest.colorTypeTabs)
+            val colorOptions = collectLastValue(underTest.colorOptions)
+            // Select "Basic colors" tab
+            colorTypes()?.get(1)?.onClick?.invoke()
+
+            // Read without subscribing, the way the list binder reads them when it sets its items.
+            assertThat(colorOptions()?.map { it.isSelected.value })
+                .containsExactly(false, true, false, false)
+                .inOrder()
+        }
+
     /** Simulates a user selecting the color option at the given index. */
     private fun TestScope.selectColorOption(
         colorOptions: () -> List<OptionItemViewModel2<ColorOptionIconViewModel>>?,
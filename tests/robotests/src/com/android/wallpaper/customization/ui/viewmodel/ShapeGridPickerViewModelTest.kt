@@ -250,6 +250,41 @@ class ShapeGridPickerViewModelTest {
             )
         }
 
+    @Test
+    fun optionItems_afterOnApply_keepsItems() =
+        testScope.runTest {
+            val optionItems = collectLastValue(underTest.gridOptions)
+            val onApply = collectLastValue(underTest.onApply)
+            val itemsBeforeApply = checkNotNull(optionItems())
+            val onPracticalOptionClick =
+                optionItems()?.get(1)?.onClicked?.let { collectLastValue(it) }
+            checkNotNull(onPracticalOptionClick)
+
+            onPracticalOptionClick()?.invoke()
+            onApply()?.invoke()
+
+            assertThat(optionItems()).containsExactlyElementsIn(itemsBeforeApply).inOrder()
+            assertThat(optionItems()?.get(0)).isSameInstanceAs(itemsBeforeApply[0])
+            assertThat(optionItems()?.get(1)).isSameInstanceAs(itemsBeforeApply[1])
+        }
+
+    @Test
+    fun optionItems_afterOptionRenamed_rebuildsItsItem() =
+        testScope.runTest {
+            val optionItems = collectLastValue(underTest.gridOptions)
+            val itemsBeforeRename = checkNotNull(optionItems())
+
+            gridOptionsManager.setGridOptions(
+                FakeShapeGridManager.DEFAULT_GRID_OPTION_LIST.map {
+                    if (it.key == "practical") it.copy(title = "Practical") else it
+                }
+            )
+
+            assertThat(optionItems()?.get(0)).isSameInstanceAs(itemsBeforeRename[0])
+            assertThat(optionItems()?.get(1)).isNotSameInstanceAs(itemsBeforeRename[1])
+            assertThat(optionItems()?.get(1)?.text).isEqualTo(Text.Loaded("Practical"))
+        }
+
     private fun TestScope.assertShapeItem(
         optionItem: OptionItemViewModel<ShapeIconViewModel>?,
         key: String,
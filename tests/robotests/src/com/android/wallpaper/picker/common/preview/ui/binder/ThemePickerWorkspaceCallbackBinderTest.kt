@@ -0,0 +1,115 @@
+/*
+ * SPDX-FileCopyrightText: DerpFest AOSP
+ * SPDX-License-Identifier: Apache-2.0
+ */
+
+package com.android.wallpaper.picker.common.preview.ui.binder
+
+import android.content.Context
+import android.graphics.Color
+import android.os.Bundle
+import androidx.test.filters.SmallTest
+import com.android.customization.picker.color.data.repository.FakeColorPickerRepository
+import com.android.customization.picker.color.shared.model.ColorOptionModel
+import com.android.systemui.monet.Style
+import com.android.wallpaper.picker.common.preview.ui.binder.ThemePickerWorkspaceCallbackBinder.Companion.KEY_COLOR_VALUES
+import com.android.wallpaper.picker.common.preview.ui.binder.ThemePickerWorkspaceCallbackBinder.Companion.KEY_DARK_MODE
+import com.google.common.truth.Truth.assertThat
+import dagger.hilt.android.qualifiers.ApplicationContext
+import dagger.hilt.android.testing.HiltAndroidRule
+import dagger.hilt.android.testing.HiltAndroidTest
+import javax.inject.Inject
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.test.TestScope
+import kotlinx.coroutines.test.runCurrent
+import kotlinx.coroutines.test.runTest
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+@HiltAndroidTest
+@OptIn(ExperimentalCoroutinesApi::class)
+@SmallTest
+@RunWith(RobolectricTestRunner::class)
+class ThemePickerWorkspaceCallbackBinderTest {
+
+    @get:Rule var hiltRule = HiltAndroidRule(this)
+    @Inject lateinit var testScope: TestScope
+    @Inject lateinit var underTest: ThemePickerWorkspaceCallbackBinder
+    @Inject @ApplicationContext lateinit var appContext: Context
+
+    private lateinit var colorPickerRepository: FakeColorPickerRepository
+    private val previewingColorOption = MutableStateFlow<ColorOptionModel?>(null)
+    private val overridingIsDarkMode = MutableStateFlow<Boolean?>(null)
+
+    @Before
+    fun setUp() {
+        hiltRule.inject()
+        colorPickerRepository = FakeColorPickerRepository(appContext)
+    }
+
+    @Test
+    fun colorUpdates_unchangedPaletteAndDarkMode_sendsNothing() =
+        testScope.runTest {
+            val updates = collectColorUpdates()
+            previewingColorOption.value = buildColorOptionModel("first", Color.RED)
+            overridingIsDarkMode.value = true
+            runCurrent()
+            val sentCount = updates.size
+
+            // Another option with the same seed and style generates an identical palette.
+            previewingColorOption.value = buildColorOptionModel("second", Color.RED)
+            runCurrent()
+
+            assertThat(updates).hasSize(sentCount)
+        }
+
+    @Test
+    fun colorUpdates_changedPalette_sendsNewPalette() =
+        testScope.runTest {
+            val updates = collectColorUpdates()
+            previewingColorOption.value = buildColorOptionModel("first", Color.RED)
+            runCurrent()
+            val redColors = updates.last().getIntArray(KEY_COLOR_VALUES)
+
+            previewingColorOption.value = buildColorOptionModel("second", Color.BLUE)
+            runCurrent()
+
+            assertThat(updates.last().getIntArray(KEY_COLOR_VALUES)).isNotEqualTo(redColors)
+        }
+
+    @Test
+    fun colorUpdates_changedDarkMode_sendsDarkMode() =
+        testScope.runTest {
+            val updates = collectColorUpdates()
+            previewingColorOption.value = buildColorOptionModel("first", Color.RED)
+            overridingIsDarkMode.value = false
+            runCurrent()
+
+            overridingIsDarkMode.value = true
+            runCurrent()
+
+            assertThat(updates.last().getBoolean(KEY_DARK_MODE)).isTrue()
+        }
+
+    private fun TestScope.collectColorUpdates(): List<Bundle> {
+        val updates = mutableListOf<Bundle>()
+        backgroundScope.launch {
+            underTest.colorUpdates(previewingColorOption, overridingIsDarkMode).toList(updates)
+        }
+        return updates
+    }
+
+    private fun buildColorOptionModel(key: String, seedColor: Int): ColorOptionModel {
+        return ColorOptionModel(
+            key = key,
+            colorOption = colorPickerRepository.buildPresetOption(Style.TONAL_SPOT, seedColor),
+            isSelected = false,
+        )
+    }
+}